@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Creates the schema that the prod profile expects to exist. Safe to re-run: every statement is
+# "if not exists". Run it before the first start of a new database or shard, and after upgrades
+# that change src/main/resources/db.
+#
+#   scripts/apply-schema.sh [--sharded] [jdbc-url...]
+#
+# Examples:
+#   scripts/apply-schema.sh                                   # single database at DATABASE_URL
+#   scripts/apply-schema.sh --sharded jdbc:postgresql://db0:5432/portfolio_0 jdbc:postgresql://db1:5432/portfolio_1
+#
+# With --sharded the URLs must be listed in portfolio.sharding.shards order: the first also gets
+# the directory tables, and each shard's id sequences are set to its own stride. Connects with
+# PGUSER and PGPASSWORD; requires psql.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SHARDED=false
+if [[ "${1:-}" == "--sharded" ]]; then
+  SHARDED=true
+  shift
+fi
+if [[ $# -eq 0 ]]; then
+  set -- "${DATABASE_URL:?set DATABASE_URL or pass the JDBC URLs}"
+fi
+
+count=1
+if [[ "$SHARDED" == true ]]; then
+  count=$#
+fi
+index=0
+for url in "$@"; do
+  target="${url#jdbc:}"
+  echo "Applying schema to ${target} (shard ${index} of ${count})"
+  psql "$target" -v ON_ERROR_STOP=1 -v shard_index="$index" -v shard_count="$count" -q \
+    -f src/main/resources/db/shard-schema.sql
+  if [[ "$SHARDED" == true && "$index" -eq 0 ]]; then
+    psql "$target" -v ON_ERROR_STOP=1 -q -f src/main/resources/db/directory-schema.sql
+  fi
+  if [[ "$SHARDED" == true ]]; then
+    index=$((index + 1))
+  fi
+done
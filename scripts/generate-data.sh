@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# Loads deterministic synthetic data into the database with COPY.
+#
+#   scripts/generate-data.sh [--users=10000] [--years=3] [--seed=42] [--as-of=2025-12-31] [--truncate] ...
+#
+# Examples:
+#   scripts/generate-data.sh                                  # ~10k users, ~9M rows
+#   scripts/generate-data.sh --users=100000 --years=5 --truncate
+#
+# Options are documented in docs/load-testing.md. Connects with DATABASE_URL, PGUSER and
+# PGPASSWORD (or --url, --db-user, --db-password). The schema must already exist, so start the
+# application once with the default profile first.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -q -Ptools compile exec:java \
+  -Dexec.mainClass=com.portfolio.management.tools.DataGenerator \
+  -Dexec.args="$*"
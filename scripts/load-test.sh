@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Drives the running application with a mixed read/write workload and prints throughput and
+# p50/p99/p99.9 latency per operation.
+#
+#   scripts/load-test.sh [--profile=read-heavy|mixed|write-heavy] [--mix=targets:50,post-transaction:50]
+#                        [--concurrency=32] [--duration=60s] [--warmup=10s] [--rate=0] ...
+#
+# Examples:
+#   scripts/load-test.sh --profile=read-heavy
+#   scripts/load-test.sh --profile=write-heavy --group-commit=false --rate=2000
+#   scripts/load-test.sh --profile=write-heavy --group-commit=true --rate=2000
+#
+# Reads portfolio ids from the database (DATABASE_URL, PGUSER, PGPASSWORD) and sends requests to
+# BASE_URL (default http://localhost:5000). Exits non-zero if the error rate exceeds
+# --max-error-rate (default 0.01).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -q -Ptools compile exec:java \
+  -Dexec.mainClass=com.portfolio.management.tools.LoadTest \
+  -Dexec.args="$*"
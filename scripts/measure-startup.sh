@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Measures time-to-started and first-request latency of the packaged application.
+#
+#   scripts/measure-startup.sh [runs] [extra JVM args...]
+#
+# Examples:
+#   scripts/measure-startup.sh 5
+#   scripts/measure-startup.sh 5 -XX:SharedArchiveFile=target/application.jsa
+#   scripts/measure-startup.sh 5 -XX:SharedArchiveFile=target/application.jsa -Dspring.aot.enabled=true
+#   APP_CMD="target/management" scripts/measure-startup.sh 5        # native executable
+#
+# Requires DATABASE_URL, PGUSER and PGPASSWORD to point at a reachable database. The last line
+# is a docs/startup.md table row with the medians; set LABEL to name the build in it.
+set -euo pipefail
+
+RUNS="${1:-5}"
+shift || true
+JAR="${JAR:-$(ls target/management-*.jar | grep -v -- '-exec.jar' | head -n 1)}"
+APP_CMD="${APP_CMD:-java $* -jar $JAR}"
+PORT="${PORT:-5000}"
+FIRST_REQUEST="${FIRST_REQUEST:-/api/users/1/portfolios/1/targets}"
+PROFILE="${PROFILE:-prod}"
+LABEL="${LABEL:-$PROFILE}"
+
+now_ms() { date +%s%3N; }
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+started_all=()
+first_request_all=()
+
+printf "%-5s %-14s %-14s %-18s\n" "run" "started (ms)" "jvm up (ms)" "first request (ms)"
+for run in $(seq 1 "$RUNS"); do
+  log="$(mktemp)"
+  launched=$(now_ms)
+  $APP_CMD --spring.profiles.active="$PROFILE" --server.port="$PORT" >"$log" 2>&1 &
+  pid=$!
+
+  until grep -q "Started PortfolioManagementApplication" "$log"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      cat "$log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  started=$(( $(now_ms) - launched ))
+  jvm_up=$(sed -n 's/.*process running for \([0-9.]*\)).*/\1/p' "$log" | awk '{ printf "%d", $1 * 1000 }')
+
+  request_start=$(now_ms)
+  curl -s -o /dev/null "http://localhost:${PORT}${FIRST_REQUEST}" || true
+  first_request=$(( $(now_ms) - request_start ))
+
+  printf "%-5s %-14s %-14s %-18s\n" "$run" "$started" "${jvm_up:-n/a}" "$first_request"
+  started_all+=("$started")
+  first_request_all+=("$first_request")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -f "$log"
+done
+
+echo
+printf "| %s | %s | %s |\n" "$LABEL" \
+  "$(printf "%s\n" "${started_all[@]}" | median)" \
+  "$(printf "%s\n" "${first_request_all[@]}" | median)"
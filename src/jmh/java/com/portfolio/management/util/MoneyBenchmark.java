@@ -0,0 +1,95 @@
+package com.portfolio.management.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@code BigDecimal} and {@link Money} paths for the valuation hot loop:
+ * summing cost and value over a portfolio and deriving the return percentage.
+ * Run with {@code mvn -Pjmh package && java -jar target/benchmarks.jar MoneyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    @Param({"100", "10000"})
+    private int holdings;
+    
+    private BigDecimal[] costs;
+    private BigDecimal[] values;
+    private long[] costUnits;
+    private long[] valueUnits;
+    
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        costs = new BigDecimal[holdings];
+        values = new BigDecimal[holdings];
+        costUnits = new long[holdings];
+        valueUnits = new long[holdings];
+        for (int i = 0; i < holdings; i++) {
+            costs[i] = BigDecimal.valueOf(random.nextLong(1_00, 1_000_000_00), Money.SCALE);
+            values[i] = BigDecimal.valueOf(random.nextLong(1_00, 1_000_000_00), Money.SCALE);
+            costUnits[i] = Money.toUnits(costs[i]);
+            valueUnits[i] = Money.toUnits(values[i]);
+        }
+        if (bigDecimalReturn().compareTo(moneySumReturn()) != 0
+                || bigDecimalReturn().compareTo(primitiveReturn()) != 0) {
+            throw new IllegalStateException("Money path diverges from BigDecimal path");
+        }
+    }
+    
+    @Benchmark
+    public BigDecimal bigDecimalReturn() {
+        BigDecimal cost = BigDecimal.ZERO;
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < holdings; i++) {
+            cost = cost.add(costs[i]);
+            value = value.add(values[i]);
+        }
+        return value.subtract(cost).multiply(HUNDRED).divide(cost, 4, RoundingMode.HALF_EVEN);
+    }
+    
+    @Benchmark
+    public BigDecimal moneySumReturn() {
+        MoneySum cost = new MoneySum();
+        MoneySum value = new MoneySum();
+        for (int i = 0; i < holdings; i++) {
+            cost.add(costs[i]);
+            value.add(values[i]);
+        }
+        Money totalCost = cost.toMoney();
+        return value.toMoney().minus(totalCost).percentOf(totalCost, 4);
+    }
+    
+    @Benchmark
+    public BigDecimal primitiveReturn() {
+        long cost = 0L;
+        long value = 0L;
+        for (int i = 0; i < holdings; i++) {
+            cost = Math.addExact(cost, costUnits[i]);
+            value = Math.addExact(value, valueUnits[i]);
+        }
+        return BigDecimal.valueOf(Money.percentUnits(value - cost, cost, 4), 4);
+    }
+}
@@ -1,9 +1,18 @@
 package com.portfolio.management;
 
+import com.portfolio.management.config.GroupCommitProperties;
+import com.portfolio.management.config.ReportProperties;
+import com.portfolio.management.config.RiskProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EntityScan("com.portfolio.management.entity")
+@EnableScheduling
+@EnableConfigurationProperties({RiskProperties.class, ReportProperties.class, GroupCommitProperties.class})
 public class PortfolioManagementApplication {
 
     public static void main(String[] args) {
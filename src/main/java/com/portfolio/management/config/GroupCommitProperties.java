@@ -0,0 +1,38 @@
+package com.portfolio.management.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "portfolio.transactions.group-commit")
+public class GroupCommitProperties {
+    
+    /**
+     * Whether transaction postings go through the group-commit writer by default. Either path
+     * can still be chosen per request for comparison.
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Writer threads. Postings are assigned to a lane by portfolio id, so postings for one
+     * portfolio are committed in submission order.
+     */
+    private int lanes = 4;
+    
+    /**
+     * Most postings written in one database transaction.
+     */
+    private int maxBatch = 500;
+    
+    /**
+     * Longest a posting waits for more postings to join its batch.
+     */
+    private Duration maxLatency = Duration.ofMillis(5);
+    
+    /**
+     * Postings waiting per lane; submissions beyond this are rejected.
+     */
+    private int queueCapacity = 10_000;
+}
@@ -0,0 +1,34 @@
+package com.portfolio.management.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "portfolio.reports")
+public class ReportProperties {
+    
+    /**
+     * Local directory holding finished report files; also serves as the result cache.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "portfolio-reports");
+    
+    private int workers = 4;
+    
+    /**
+     * Jobs waiting for a worker; submissions beyond this are rejected.
+     */
+    private int queueCapacity = 100;
+    
+    /**
+     * How long finished jobs and cached files are kept.
+     */
+    private Duration retention = Duration.ofDays(1);
+    
+    /**
+     * Rows written to a PDF table before it is flushed to the document.
+     */
+    private int pdfFlushRows = 500;
+}
@@ -0,0 +1,58 @@
+package com.portfolio.management.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "portfolio.risk")
+public class RiskProperties {
+    
+    private int defaultPaths = 100_000;
+    
+    private int maxPaths = 2_000_000;
+    
+    private int defaultHorizonDays = 10;
+    
+    private int tradingDaysPerYear = 252;
+    
+    /**
+     * Minimum number of daily returns in the performance history before it is resampled
+     * instead of using the per-type assumptions.
+     */
+    private int minHistory = 60;
+    
+    /**
+     * Number of simulation results kept in memory.
+     */
+    private int cacheSize = 10_000;
+    
+    /**
+     * Return assumptions keyed by {@code Investment.type}.
+     */
+    private Map<String, Assumption> assumptions = new HashMap<>();
+    
+    private Assumption defaultAssumption = new Assumption(0.05, 0.15);
+    
+    /**
+     * Correlation between the daily returns of any two asset types in the parametric model,
+     * from 0 (independent, which understates VaR) to 1 (perfectly correlated).
+     */
+    private double correlation = 0.5;
+    
+    @Data
+    public static class Assumption {
+        private double annualReturn;
+        private double annualVolatility;
+        
+        public Assumption() {
+        }
+        
+        public Assumption(double annualReturn, double annualVolatility) {
+            this.annualReturn = annualReturn;
+            this.annualVolatility = annualVolatility;
+        }
+    }
+}
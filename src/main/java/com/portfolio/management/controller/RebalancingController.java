@@ -0,0 +1,47 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.RebalanceProposalDTO;
+import com.portfolio.management.dto.TargetAllocationDTO;
+import com.portfolio.management.service.RebalancingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Validated
+@RequestMapping("/api/users/{userId}/portfolios/{portfolioId}")
+public class RebalancingController {
+    
+    private final RebalancingService rebalancingService;
+    
+    @Autowired
+    public RebalancingController(RebalancingService rebalancingService) {
+        this.rebalancingService = rebalancingService;
+    }
+    
+    @GetMapping("/targets")
+    public ResponseEntity<List<TargetAllocationDTO>> getTargets(@PathVariable Long userId, @PathVariable Long portfolioId) {
+        return ResponseEntity.ok(rebalancingService.getTargets(userId, portfolioId));
+    }
+    
+    @PutMapping("/targets")
+    public ResponseEntity<List<TargetAllocationDTO>> replaceTargets(@PathVariable Long userId,
+                                                                    @PathVariable Long portfolioId,
+                                                                    @RequestBody List<@Valid TargetAllocationDTO> targets) {
+        return ResponseEntity.ok(rebalancingService.replaceTargets(userId, portfolioId, targets));
+    }
+    
+    @GetMapping("/rebalance")
+    public ResponseEntity<RebalanceProposalDTO> proposeRebalance(@PathVariable Long userId, @PathVariable Long portfolioId) {
+        return ResponseEntity.ok(rebalancingService.proposeRebalance(userId, portfolioId));
+    }
+}
@@ -0,0 +1,64 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.ReportJobDTO;
+import com.portfolio.management.dto.ReportRequestDTO;
+import com.portfolio.management.service.ReportJobService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api")
+public class ReportController {
+    
+    private final ReportJobService reportJobService;
+    
+    @Autowired
+    public ReportController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+    
+    @PostMapping("/users/{userId}/portfolios/{portfolioId}/reports")
+    public ResponseEntity<ReportJobDTO> submitReport(@PathVariable Long userId,
+                                                     @PathVariable Long portfolioId,
+                                                     @Valid @RequestBody ReportRequestDTO request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(reportJobService.submit(userId, portfolioId, request));
+    }
+    
+    @GetMapping("/users/{userId}/reports/{jobId}")
+    public ResponseEntity<ReportJobDTO> getReportJob(@PathVariable Long userId, @PathVariable String jobId) {
+        return ResponseEntity.ok(reportJobService.getJob(userId, jobId));
+    }
+    
+    @GetMapping("/users/{userId}/reports/{jobId}/download")
+    public ResponseEntity<Resource> downloadReport(@PathVariable Long userId, @PathVariable String jobId) {
+        ReportJobDTO job = reportJobService.getJob(userId, jobId);
+        Resource file = new FileSystemResource(reportJobService.getFile(userId, jobId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(reportJobService.getFileName(userId, jobId))
+                        .build()
+                        .toString())
+                .body(file);
+    }
+    
+    @DeleteMapping("/users/{userId}/reports/{jobId}")
+    public ResponseEntity<ReportJobDTO> cancelReport(@PathVariable Long userId, @PathVariable String jobId) {
+        return ResponseEntity.ok(reportJobService.cancel(userId, jobId));
+    }
+}
@@ -0,0 +1,32 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.RiskReportDTO;
+import com.portfolio.management.service.RiskSimulationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/users/{userId}/portfolios/{portfolioId}/risk")
+public class RiskController {
+    
+    private final RiskSimulationService riskSimulationService;
+    
+    @Autowired
+    public RiskController(RiskSimulationService riskSimulationService) {
+        this.riskSimulationService = riskSimulationService;
+    }
+    
+    @GetMapping
+    public ResponseEntity<RiskReportDTO> getRisk(@PathVariable Long userId,
+                                                 @PathVariable Long portfolioId,
+                                                 @RequestParam(required = false) Integer horizonDays,
+                                                 @RequestParam(required = false) Integer paths,
+                                                 @RequestParam(required = false) Long seed) {
+        return ResponseEntity.ok(riskSimulationService.simulate(userId, portfolioId, horizonDays, paths, seed));
+    }
+}
@@ -0,0 +1,39 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.SearchHitDTO;
+import com.portfolio.management.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class SearchController {
+    
+    private final SearchService searchService;
+    
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+    
+    @GetMapping("/users/{userId}/investments/search")
+    public ResponseEntity<List<SearchHitDTO>> searchInvestments(@PathVariable Long userId,
+                                                                @RequestParam String q,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.searchInvestments(userId, q, limit));
+    }
+    
+    // Matches every user's name, username and e-mail, so it stays under the admin prefix
+    @GetMapping("/admin/users/search")
+    public ResponseEntity<List<SearchHitDTO>> searchUsers(@RequestParam String q,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.searchUsers(q, limit));
+    }
+}
@@ -0,0 +1,56 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.service.UserIdentityRegistry;
+import com.portfolio.management.sharding.ShardMigrationService;
+import com.portfolio.management.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+public class ShardAdminController {
+    
+    private final ShardRouter shardRouter;
+    private final ShardMigrationService shardMigrationService;
+    private final UserIdentityRegistry identityRegistry;
+    
+    @Autowired
+    public ShardAdminController(ShardRouter shardRouter, ShardMigrationService shardMigrationService,
+                                UserIdentityRegistry identityRegistry) {
+        this.shardRouter = shardRouter;
+        this.shardMigrationService = shardMigrationService;
+        this.identityRegistry = identityRegistry;
+    }
+    
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<Map<String, Object>> getUserShard(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of("userId", userId, "shardId", shardRouter.shardForUser(userId)));
+    }
+    
+    @PostMapping("/users/{userId}/move")
+    public ResponseEntity<Map<String, Integer>> moveUser(@PathVariable Long userId, @RequestParam int targetShard) {
+        return ResponseEntity.ok(shardMigrationService.moveUser(userId, targetShard));
+    }
+    
+    // Recovers a user left MOVING by a move whose process died
+    @PostMapping("/users/{userId}/resolve-move")
+    public ResponseEntity<Map<String, Integer>> resolveMove(@PathVariable Long userId) {
+        return ResponseEntity.ok(shardMigrationService.resolveMove(userId));
+    }
+    
+    // One-off for users created before user_identities existed
+    @PostMapping("/identities/backfill")
+    public ResponseEntity<Map<String, Integer>> backfillIdentities() {
+        return ResponseEntity.ok(Map.of("added", identityRegistry.backfill()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.PostingMetricsDTO;
+import com.portfolio.management.dto.TransactionCreateDTO;
+import com.portfolio.management.dto.TransactionDTO;
+import com.portfolio.management.service.TransactionPostingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api")
+public class TransactionController {
+    
+    private final TransactionPostingService transactionPostingService;
+    
+    @Autowired
+    public TransactionController(TransactionPostingService transactionPostingService) {
+        this.transactionPostingService = transactionPostingService;
+    }
+    
+    // groupCommit overrides portfolio.transactions.group-commit.enabled for this request
+    @PostMapping("/users/{userId}/transactions")
+    public CompletableFuture<ResponseEntity<TransactionDTO>> postTransaction(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Boolean groupCommit,
+            @Valid @RequestBody TransactionCreateDTO transactionCreateDTO) {
+        return transactionPostingService.post(userId, transactionCreateDTO, groupCommit)
+                .thenApply(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved));
+    }
+    
+    @GetMapping("/admin/transactions/posting-metrics")
+    public ResponseEntity<List<PostingMetricsDTO>> getPostingMetrics() {
+        return ResponseEntity.ok(transactionPostingService.getMetrics());
+    }
+    
+    @DeleteMapping("/admin/transactions/posting-metrics")
+    public ResponseEntity<Void> resetPostingMetrics() {
+        transactionPostingService.resetMetrics();
+        return ResponseEntity.noContent().build();
+    }
+}
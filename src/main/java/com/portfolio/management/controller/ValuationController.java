@@ -0,0 +1,48 @@
+package com.portfolio.management.controller;
+
+import com.portfolio.management.dto.PerformanceSummaryDTO;
+import com.portfolio.management.dto.PortfolioValuationDTO;
+import com.portfolio.management.service.PortfolioValuationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/users/{userId}/portfolios/{portfolioId}")
+public class ValuationController {
+    
+    private final PortfolioValuationService portfolioValuationService;
+    
+    @Autowired
+    public ValuationController(PortfolioValuationService portfolioValuationService) {
+        this.portfolioValuationService = portfolioValuationService;
+    }
+    
+    @GetMapping("/valuation")
+    public ResponseEntity<PortfolioValuationDTO> getValuation(@PathVariable Long userId, @PathVariable Long portfolioId) {
+        return ResponseEntity.ok(portfolioValuationService.valuate(userId, portfolioId));
+    }
+    
+    // Recomputes the valuation and stores it as the portfolio's total value
+    @PostMapping("/valuation/refresh")
+    public ResponseEntity<PortfolioValuationDTO> refreshValuation(@PathVariable Long userId, @PathVariable Long portfolioId) {
+        return ResponseEntity.ok(portfolioValuationService.refreshTotalValue(userId, portfolioId));
+    }
+    
+    @GetMapping("/performance/summary")
+    public ResponseEntity<PerformanceSummaryDTO> getPerformanceSummary(
+            @PathVariable Long userId,
+            @PathVariable Long portfolioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(portfolioValuationService.summarizePerformance(userId, portfolioId, startDate, endDate));
+    }
+}
@@ -0,0 +1,23 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerformanceSummaryDTO {
+    private Long portfolioId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal startValue;
+    private BigDecimal endValue;
+    private BigDecimal change;
+    private BigDecimal percentageChange;
+    private BigDecimal bestDailyChange;
+    private BigDecimal worstDailyChange;
+    private BigDecimal maxDrawdownPercentage;
+}
@@ -0,0 +1,18 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioValuationDTO {
+    private Long portfolioId;
+    private Integer holdings;
+    private BigDecimal totalCost;
+    private BigDecimal totalValue;
+    private BigDecimal unrealizedGain;
+    private BigDecimal returnPercentage;
+}
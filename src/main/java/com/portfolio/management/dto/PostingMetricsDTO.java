@@ -0,0 +1,21 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostingMetricsDTO {
+    private String mode;
+    private Long postings;
+    private Long failures;
+    private Double postingsPerSecond;
+    private Long p50Micros;
+    private Long p99Micros;
+    private Long p999Micros;
+    private Long maxMicros;
+    private Long commits;
+    private Double averageBatchSize;
+}
@@ -0,0 +1,16 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebalanceProposalDTO {
+    private Long portfolioId;
+    private BigDecimal rebalancedValue;
+    private List<TransactionDTO> transactions;
+}
@@ -0,0 +1,26 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private String jobId;
+    private Long portfolioId;
+    private ReportRequestDTO.ReportFormat format;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String status;
+    private Boolean cached;
+    private Long rows;
+    private Long sizeBytes;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
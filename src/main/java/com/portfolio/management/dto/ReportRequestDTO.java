@@ -0,0 +1,44 @@
+package com.portfolio.management.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportRequestDTO {
+    
+    @NotNull(message = "Format is required")
+    private ReportFormat format;
+    
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+    
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+    
+    public enum ReportFormat {
+        CSV("text/csv", "csv"),
+        PDF("application/pdf", "pdf");
+        
+        private final String contentType;
+        private final String extension;
+        
+        ReportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.portfolio.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskReportDTO {
+    private Long portfolioId;
+    private BigDecimal currentValue;
+    private Integer horizonDays;
+    private Integer paths;
+    private Long seed;
+    private String model;
+    private BigDecimal valueAtRisk95;
+    private BigDecimal valueAtRisk99;
+    private BigDecimal expectedShortfall95;
+    private BigDecimal expectedShortfall99;
+    private Map<String, BigDecimal> valuePercentiles;
+}
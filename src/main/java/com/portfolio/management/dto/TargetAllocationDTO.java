@@ -0,0 +1,31 @@
+package com.portfolio.management.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TargetAllocationDTO {
+    
+    private Long id;
+    
+    @NotBlank(message = "Asset type is required")
+    private String assetType;
+    
+    @NotNull(message = "Target weight is required")
+    @DecimalMin(value = "0", message = "Target weight cannot be negative")
+    @DecimalMax(value = "100", message = "Target weight cannot exceed 100")
+    private BigDecimal targetWeight;
+    
+    @DecimalMin(value = "0", message = "Tolerance cannot be negative")
+    private BigDecimal tolerance;
+    
+    private Long portfolioId;
+}
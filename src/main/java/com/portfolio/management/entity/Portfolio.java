@@ -1,10 +1,10 @@
 package com.portfolio.management.entity;
 
+import com.portfolio.management.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -24,8 +24,9 @@ public class Portfolio {
     
     private String description;
     
-    @Column(name = "total_value")
-    private BigDecimal totalValue = BigDecimal.ZERO;
+    // Mapped through MoneyConverter
+    @Column(name = "total_value", precision = 38, scale = 2)
+    private Money totalValue = Money.ZERO;
     
     @Column(name = "is_active")
     private Boolean isActive = true;
@@ -50,7 +51,7 @@ public class Portfolio {
     public void prePersist() {
         createdAt = LocalDateTime.now();
         if (totalValue == null) {
-            totalValue = BigDecimal.ZERO;
+            totalValue = Money.ZERO;
         }
     }
 }
@@ -0,0 +1,75 @@
+package com.portfolio.management.entity;
+
+import com.portfolio.management.service.SearchService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps {@link SearchService} in step with entity writes. Index changes are applied only
+ * after the surrounding transaction commits so rolled-back writes never become searchable.
+ * The callbacks run during flush, so they never initialize a lazy association.
+ */
+@Component
+public class SearchIndexListener {
+    
+    private final ObjectProvider<SearchService> searchService;
+    
+    @Autowired
+    public SearchIndexListener(ObjectProvider<SearchService> searchService) {
+        this.searchService = searchService;
+    }
+    
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Investment investment) {
+            Long id = investment.getId();
+            Portfolio portfolio = investment.getPortfolio();
+            Long portfolioId = portfolio.getId();
+            // reading the id of an uninitialized proxy does not load it; getUser() would
+            Long userId = Hibernate.isInitialized(portfolio) ? portfolio.getUser().getId() : null;
+            String name = investment.getName();
+            String description = investment.getDescription();
+            String type = investment.getType();
+            afterCommit(() -> searchService.getObject()
+                    .indexInvestment(id, portfolioId, userId, name, description, type));
+        } else if (entity instanceof User user) {
+            Long id = user.getId();
+            String username = user.getUsername();
+            String name = user.getName();
+            String email = user.getEmail();
+            afterCommit(() -> searchService.getObject().indexUser(id, username, name, email));
+        }
+    }
+    
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Investment investment) {
+            Long id = investment.getId();
+            afterCommit(() -> searchService.getObject().removeInvestment(id));
+        } else if (entity instanceof User user) {
+            Long id = user.getId();
+            afterCommit(() -> searchService.getObject().removeUser(id));
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
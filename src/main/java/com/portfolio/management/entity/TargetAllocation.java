@@ -0,0 +1,37 @@
+package com.portfolio.management.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "target_allocations",
+        uniqueConstraints = @UniqueConstraint(name = "target_allocations_portfolio_id_asset_type_key",
+                columnNames = {"portfolio_id", "asset_type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TargetAllocation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Matches Investment.type
+    @Column(name = "asset_type", nullable = false)
+    private String assetType;
+    
+    // Percentage of the portfolio, e.g. 40.00
+    @Column(name = "target_weight", nullable = false, precision = 5, scale = 2)
+    private BigDecimal targetWeight;
+    
+    // Allowed drift either side of the target, in percentage points
+    @Column(nullable = false, precision = 5, scale = 2)
+    private BigDecimal tolerance = BigDecimal.valueOf(5);
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "portfolio_id", nullable = false)
+    private Portfolio portfolio;
+}
@@ -8,17 +8,24 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@EntityListeners(SearchIndexListener.class)
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_KEY, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_KEY, columnNames = "email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     
+    public static final String USERNAME_KEY = "users_username_key";
+    public static final String EMAIL_KEY = "users_email_key";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
     
     @Column(nullable = false)
@@ -0,0 +1,31 @@
+package com.portfolio.management.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserAlreadyExistsException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public enum Field {
+        USERNAME,
+        EMAIL
+    }
+    
+    private final Field field;
+    
+    public UserAlreadyExistsException(Field field) {
+        super(field == Field.USERNAME ? "Username already taken" : "Email already in use");
+        this.field = field;
+    }
+    
+    public UserAlreadyExistsException(Field field, Throwable cause) {
+        this(field);
+        initCause(cause);
+    }
+    
+    public Field getField() {
+        return field;
+    }
+}
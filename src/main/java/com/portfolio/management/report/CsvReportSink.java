@@ -0,0 +1,62 @@
+package com.portfolio.management.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV. Sections are separated by a blank line and start with a single-cell title row.
+ */
+public class CsvReportSink implements ReportSink {
+    
+    private final Writer writer;
+    private boolean first = true;
+    
+    public CsvReportSink(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+    
+    @Override
+    public void section(String title, String... headers) throws IOException {
+        if (!first) {
+            writer.write("\r\n");
+        }
+        first = false;
+        row(title);
+        row((Object[]) headers);
+    }
+    
+    @Override
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(ReportSink.text(values[i]));
+        }
+        writer.write("\r\n");
+    }
+    
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
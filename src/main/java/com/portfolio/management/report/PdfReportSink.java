@@ -0,0 +1,93 @@
+package com.portfolio.management.report;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * PDF output using OpenPDF. Tables are marked incomplete and added to the document every
+ * {@code flushRows} rows, so finished rows are written out instead of held in memory.
+ */
+public class PdfReportSink implements ReportSink {
+    
+    private static final Font TITLE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+    private static final Font HEADER = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8);
+    private static final Font CELL = FontFactory.getFont(FontFactory.HELVETICA, 8);
+    
+    private final Document document;
+    private final int flushRows;
+    private PdfPTable table;
+    private int pendingRows;
+    
+    public PdfReportSink(OutputStream out, String title, int flushRows) throws IOException {
+        this.document = new Document(PageSize.A4.rotate());
+        this.flushRows = Math.max(1, flushRows);
+        try {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            document.add(new Paragraph(title, TITLE));
+        } catch (DocumentException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    @Override
+    public void section(String title, String... headers) throws IOException {
+        finishTable();
+        Paragraph heading = new Paragraph(title, TITLE);
+        heading.setSpacingBefore(12);
+        heading.setSpacingAfter(6);
+        add(heading);
+        table = new PdfPTable(headers.length);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        for (String header : headers) {
+            table.addCell(new Phrase(header, HEADER));
+        }
+    }
+    
+    @Override
+    public void row(Object... values) throws IOException {
+        for (Object value : values) {
+            table.addCell(new Phrase(ReportSink.text(value), CELL));
+        }
+        if (++pendingRows >= flushRows) {
+            add(table);
+            pendingRows = 0;
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        finishTable();
+        document.close();
+    }
+    
+    private void finishTable() throws IOException {
+        if (table != null) {
+            table.setComplete(true);
+            add(table);
+            table = null;
+            pendingRows = 0;
+        }
+    }
+    
+    private void add(Element element) throws IOException {
+        try {
+            document.add(element);
+        } catch (DocumentException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.portfolio.management.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Row-at-a-time report output. Implementations must not buffer whole sections so reports of any
+ * size can be written in constant memory.
+ */
+public interface ReportSink extends Closeable {
+    
+    void section(String title, String... headers) throws IOException;
+    
+    void row(Object... values) throws IOException;
+    
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+}
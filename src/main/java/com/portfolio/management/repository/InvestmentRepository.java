@@ -1,12 +1,89 @@
 package com.portfolio.management.repository;
 
 import com.portfolio.management.entity.Investment;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface InvestmentRepository extends JpaRepository<Investment, Long> {
     List<Investment> findByPortfolioId(Long portfolioId);
     List<Investment> findByPortfolioIdAndIsActiveTrue(Long portfolioId);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select i.id as id, i.name as name, i.description as description, i.type as type, " +
+            "p.id as portfolioId, p.user.id as userId from Investment i join i.portfolio p")
+    Stream<SearchRow> streamSearchRows();
+    
+    @Query("select i.amount as amount, i.currentValue as currentValue from Investment i " +
+            "where i.portfolio.id = :portfolioId and i.isActive = true")
+    List<ValueRow> findActiveValuesByPortfolioId(@Param("portfolioId") Long portfolioId);
+    
+    @Query("select i.portfolio.id as portfolioId, i.type as type, sum(i.currentValue) as value from Investment i " +
+            "where i.isActive = true and i.portfolio.id in :portfolioIds group by i.portfolio.id, i.type")
+    List<HoldingRow> findActiveHoldingsByType(@Param("portfolioIds") Collection<Long> portfolioIds);
+    
+    @Query("select i.id as id, i.portfolio.id as portfolioId from Investment i where i.id in :ids")
+    List<PortfolioRow> findPortfolioIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select i.id as id, i.name as name, i.type as type, i.riskLevel as riskLevel, i.amount as amount, " +
+            "i.currentValue as currentValue, i.purchaseDate as purchaseDate from Investment i " +
+            "where i.portfolio.id = :portfolioId and i.isActive = true order by i.id")
+    Stream<ReportRow> streamActiveForReport(@Param("portfolioId") Long portfolioId);
+    
+    // Digest of every value streamActiveForReport returns: the row count and two sums of 64-bit row
+    // hashes, so it needs no sort and no memory per row
+    @Query(value = "select count(*) || ':' || " +
+            "coalesce(sum(cast(cast('x' || left(d.h, 16) as bit(64)) as bigint)), 0) || ':' || " +
+            "coalesce(sum(cast(cast('x' || right(d.h, 16) as bit(64)) as bigint)), 0) " +
+            "from (select md5(cast(row(i.id, i.name, i.type, i.risk_level, i.amount, i.current_value, " +
+            "i.purchase_date) as text)) as h from investments i " +
+            "where i.portfolio_id = :portfolioId and i.is_active) d", nativeQuery = true)
+    String findActiveReportDigest(@Param("portfolioId") Long portfolioId);
+    
+    interface SearchRow {
+        Long getId();
+        String getName();
+        String getDescription();
+        String getType();
+        Long getPortfolioId();
+        Long getUserId();
+    }
+    
+    interface ValueRow {
+        BigDecimal getAmount();
+        BigDecimal getCurrentValue();
+    }
+    
+    interface HoldingRow {
+        Long getPortfolioId();
+        String getType();
+        BigDecimal getValue();
+    }
+    
+    interface PortfolioRow {
+        Long getId();
+        Long getPortfolioId();
+    }
+    
+    interface ReportRow {
+        Long getId();
+        String getName();
+        String getType();
+        String getRiskLevel();
+        BigDecimal getAmount();
+        BigDecimal getCurrentValue();
+        LocalDate getPurchaseDate();
+    }
 }
@@ -1,15 +1,61 @@
 package com.portfolio.management.repository;
 
 import com.portfolio.management.entity.Performance;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PerformanceRepository extends JpaRepository<Performance, Long> {
     List<Performance> findByPortfolioIdOrderByDateAsc(Long portfolioId);
     List<Performance> findByPortfolioIdAndDateBetweenOrderByDateAsc(Long portfolioId, LocalDate startDate, LocalDate endDate);
     Optional<Performance> findByPortfolioIdAndDate(Long portfolioId, LocalDate date);
+    
+    @Query("select p.totalValue from Performance p where p.portfolio.id = :portfolioId order by p.date")
+    List<BigDecimal> findTotalValuesByPortfolioId(@Param("portfolioId") Long portfolioId);
+    
+    @Query("select count(p) as count, max(p.date) as lastDate from Performance p where p.portfolio.id = :portfolioId")
+    SeriesVersion findSeriesVersion(@Param("portfolioId") Long portfolioId);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.date as date, p.totalValue as totalValue, p.dailyChange as dailyChange, " +
+            "p.percentageChange as percentageChange from Performance p where p.portfolio.id = :portfolioId " +
+            "and p.date between :startDate and :endDate order by p.date")
+    Stream<ReportRow> streamForReport(@Param("portfolioId") Long portfolioId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+    
+    // Digest of every value streamForReport returns, built like InvestmentRepository.findActiveReportDigest;
+    // the id is hashed too because it orders rows of the same date
+    @Query(value = "select count(*) || ':' || " +
+            "coalesce(sum(cast(cast('x' || left(d.h, 16) as bit(64)) as bigint)), 0) || ':' || " +
+            "coalesce(sum(cast(cast('x' || right(d.h, 16) as bit(64)) as bigint)), 0) " +
+            "from (select md5(cast(row(p.id, p.date, p.total_value, p.daily_change, p.percentage_change) " +
+            "as text)) as h from performance p " +
+            "where p.portfolio_id = :portfolioId and p.date between :startDate and :endDate) d", nativeQuery = true)
+    String findReportDigest(@Param("portfolioId") Long portfolioId,
+                            @Param("startDate") LocalDate startDate,
+                            @Param("endDate") LocalDate endDate);
+    
+    interface SeriesVersion {
+        Long getCount();
+        LocalDate getLastDate();
+    }
+    
+    interface ReportRow {
+        LocalDate getDate();
+        BigDecimal getTotalValue();
+        BigDecimal getDailyChange();
+        BigDecimal getPercentageChange();
+    }
 }
@@ -2,11 +2,24 @@ package com.portfolio.management.repository;
 
 import com.portfolio.management.entity.Portfolio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
     List<Portfolio> findByUserId(Long userId);
     List<Portfolio> findByUserIdAndIsActiveTrue(Long userId);
+    Optional<Portfolio> findByIdAndUserId(Long id, Long userId);
+    
+    @Query("select p.id as id, p.user.id as userId from Portfolio p where p.id in :ids")
+    List<OwnerRow> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface OwnerRow {
+        Long getId();
+        Long getUserId();
+    }
 }
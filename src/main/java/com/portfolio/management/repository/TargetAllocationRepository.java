@@ -0,0 +1,25 @@
+package com.portfolio.management.repository;
+
+import com.portfolio.management.entity.TargetAllocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TargetAllocationRepository extends JpaRepository<TargetAllocation, Long> {
+    List<TargetAllocation> findByPortfolioId(Long portfolioId);
+    List<TargetAllocation> findByPortfolioIdIn(Collection<Long> portfolioIds);
+    
+    @Query("select distinct t.portfolio.id from TargetAllocation t " +
+            "where t.portfolio.isActive = true and t.portfolio.id > :afterId order by t.portfolio.id")
+    List<Long> findActivePortfolioIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("delete from TargetAllocation t where t.portfolio.id = :portfolioId")
+    void deleteByPortfolioId(@Param("portfolioId") Long portfolioId);
+}
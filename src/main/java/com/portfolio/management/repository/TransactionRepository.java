@@ -1,9 +1,19 @@
 package com.portfolio.management.repository;
 
 import com.portfolio.management.entity.Transaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -11,4 +21,36 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByInvestmentId(Long investmentId);
     List<Transaction> findByPortfolioIdAndInvestmentId(Long portfolioId, Long investmentId);
     List<Transaction> findTop10ByPortfolioIdOrderByDateDesc(Long portfolioId);
-}
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select t.id as id, t.date as date, t.transactionType as transactionType, t.amount as amount, " +
+            "t.notes as notes, t.investment.id as investmentId from Transaction t " +
+            "where t.portfolio.id = :portfolioId and t.date >= :from and t.date < :to " +
+            "and t.transactionType not in :excludedTypes order by t.date, t.id")
+    Stream<ReportRow> streamForReport(@Param("portfolioId") Long portfolioId,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to,
+                                      @Param("excludedTypes") Collection<String> excludedTypes);
+    
+    // Digest of every value streamForReport returns, built like InvestmentRepository.findActiveReportDigest
+    @Query(value = "select count(*) || ':' || " +
+            "coalesce(sum(cast(cast('x' || left(d.h, 16) as bit(64)) as bigint)), 0) || ':' || " +
+            "coalesce(sum(cast(cast('x' || right(d.h, 16) as bit(64)) as bigint)), 0) " +
+            "from (select md5(cast(row(t.id, t.date, t.transaction_type, t.amount, t.notes, t.investment_id) " +
+            "as text)) as h from transactions t " +
+            "where t.portfolio_id = :portfolioId and t.date >= :from and t.date < :to " +
+            "and t.transaction_type not in :excludedTypes) d", nativeQuery = true)
+    String findReportDigest(@Param("portfolioId") Long portfolioId,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to,
+                            @Param("excludedTypes") Collection<String> excludedTypes);
+    
+    interface ReportRow {
+        Long getId();
+        LocalDateTime getDate();
+        String getTransactionType();
+        BigDecimal getAmount();
+        String getNotes();
+        Long getInvestmentId();
+    }
+}
\ No newline at end of file
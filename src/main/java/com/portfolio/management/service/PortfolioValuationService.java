@@ -0,0 +1,198 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.dto.PerformanceSummaryDTO;
+import com.portfolio.management.dto.PortfolioValuationDTO;
+import com.portfolio.management.entity.Performance;
+import com.portfolio.management.entity.Portfolio;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PerformanceRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.Money;
+import com.portfolio.management.util.MoneySum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Valuation, P&L and performance statistics. Aggregation runs on {@link Money} minor units;
+ * results are identical to the plain {@code BigDecimal} formulas at {@link Money#SCALE}
+ * with {@link Money#ROUNDING}, and percentages are reported at {@link #PERCENT_SCALE}.
+ * Every call runs on the owning user's shard and checks that the portfolio belongs to them.
+ */
+@Service
+public class PortfolioValuationService {
+    
+    public static final int PERCENT_SCALE = 4;
+    
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    private final PortfolioRepository portfolioRepository;
+    private final InvestmentRepository investmentRepository;
+    private final PerformanceRepository performanceRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    @Autowired
+    public PortfolioValuationService(PortfolioRepository portfolioRepository,
+                                     InvestmentRepository investmentRepository,
+                                     PerformanceRepository performanceRepository,
+                                     ShardRouter shardRouter,
+                                     PlatformTransactionManager transactionManager) {
+        this.portfolioRepository = portfolioRepository;
+        this.investmentRepository = investmentRepository;
+        this.performanceRepository = performanceRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    public PortfolioValuationDTO valuate(Long userId, Long portfolioId) {
+        return shardRouter.callForUser(userId, () -> readOnlyTransaction.execute(status -> {
+            requirePortfolio(userId, portfolioId);
+            return computeValuation(portfolioId);
+        }));
+    }
+    
+    public PortfolioValuationDTO refreshTotalValue(Long userId, Long portfolioId) {
+        return shardRouter.callForUser(userId, () -> transactionTemplate.execute(status -> {
+            Portfolio portfolio = requirePortfolio(userId, portfolioId);
+            PortfolioValuationDTO valuation = computeValuation(portfolioId);
+            portfolio.setTotalValue(Money.of(valuation.getTotalValue()));
+            portfolioRepository.save(portfolio);
+            return valuation;
+        }));
+    }
+    
+    public PerformanceSummaryDTO summarizePerformance(Long userId, Long portfolioId,
+                                                      LocalDate startDate, LocalDate endDate) {
+        return shardRouter.callForUser(userId, () -> readOnlyTransaction.execute(status -> {
+            requirePortfolio(userId, portfolioId);
+            List<Performance> history = performanceRepository
+                    .findByPortfolioIdAndDateBetweenOrderByDateAsc(portfolioId, startDate, endDate);
+            if (history.isEmpty()) {
+                return new PerformanceSummaryDTO(portfolioId, startDate, endDate,
+                        null, null, null, null, null, null, null);
+            }
+            try {
+                return summarize(portfolioId, history);
+            } catch (ArithmeticException e) {
+                return summarizeExact(portfolioId, history);
+            }
+        }));
+    }
+    
+    private Portfolio requirePortfolio(Long userId, Long portfolioId) {
+        return portfolioRepository.findByIdAndUserId(portfolioId, userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+    }
+    
+    private PortfolioValuationDTO computeValuation(Long portfolioId) {
+        List<InvestmentRepository.ValueRow> rows = investmentRepository.findActiveValuesByPortfolioId(portfolioId);
+        MoneySum cost = new MoneySum();
+        MoneySum value = new MoneySum();
+        for (InvestmentRepository.ValueRow row : rows) {
+            cost.add(row.getAmount());
+            value.add(row.getCurrentValue());
+        }
+        
+        Money totalCost = cost.toMoney();
+        Money totalValue = value.toMoney();
+        Money gain = totalValue.minus(totalCost);
+        BigDecimal returnPercentage = totalCost.signum() == 0
+                ? BigDecimal.ZERO.setScale(PERCENT_SCALE)
+                : gain.percentOf(totalCost, PERCENT_SCALE);
+        
+        return new PortfolioValuationDTO(portfolioId, rows.size(), totalCost.toBigDecimal(),
+                totalValue.toBigDecimal(), gain.toBigDecimal(), returnPercentage);
+    }
+    
+    // package-private so tests can compare it with summarizeExact
+    PerformanceSummaryDTO summarize(Long portfolioId, List<Performance> history) {
+        int n = history.size();
+        long first = Money.toUnits(history.get(0).getTotalValue());
+        long previous = first;
+        long peak = first;
+        long best = 0L;
+        long worst = 0L;
+        long maxDrawdown = 0L;
+        for (int i = 1; i < n; i++) {
+            long current = Money.toUnits(history.get(i).getTotalValue());
+            long change = Math.subtractExact(current, previous);
+            if (i == 1 || change > best) {
+                best = change;
+            }
+            if (i == 1 || change < worst) {
+                worst = change;
+            }
+            if (current > peak) {
+                peak = current;
+            } else if (peak > 0) {
+                long drawdown = Money.percentUnits(Math.subtractExact(peak, current), peak, PERCENT_SCALE);
+                if (drawdown > maxDrawdown) {
+                    maxDrawdown = drawdown;
+                }
+            }
+            previous = current;
+        }
+        
+        long change = Math.subtractExact(previous, first);
+        BigDecimal percentageChange = first == 0L
+                ? null
+                : BigDecimal.valueOf(Money.percentUnits(change, first, PERCENT_SCALE), PERCENT_SCALE);
+        return new PerformanceSummaryDTO(portfolioId, history.get(0).getDate(), history.get(n - 1).getDate(),
+                BigDecimal.valueOf(first, Money.SCALE), BigDecimal.valueOf(previous, Money.SCALE),
+                BigDecimal.valueOf(change, Money.SCALE), percentageChange,
+                n > 1 ? BigDecimal.valueOf(best, Money.SCALE) : null,
+                n > 1 ? BigDecimal.valueOf(worst, Money.SCALE) : null,
+                BigDecimal.valueOf(maxDrawdown, PERCENT_SCALE));
+    }
+    
+    /**
+     * Reference {@code BigDecimal} implementation of {@link #summarize}, used when amounts
+     * exceed the {@code long} range.
+     */
+    PerformanceSummaryDTO summarizeExact(Long portfolioId, List<Performance> history) {
+        int n = history.size();
+        BigDecimal first = history.get(0).getTotalValue().setScale(Money.SCALE, Money.ROUNDING);
+        BigDecimal previous = first;
+        BigDecimal peak = first;
+        BigDecimal best = null;
+        BigDecimal worst = null;
+        BigDecimal maxDrawdown = BigDecimal.ZERO.setScale(PERCENT_SCALE);
+        for (int i = 1; i < n; i++) {
+            BigDecimal current = history.get(i).getTotalValue().setScale(Money.SCALE, Money.ROUNDING);
+            BigDecimal change = current.subtract(previous);
+            if (best == null || change.compareTo(best) > 0) {
+                best = change;
+            }
+            if (worst == null || change.compareTo(worst) < 0) {
+                worst = change;
+            }
+            if (current.compareTo(peak) > 0) {
+                peak = current;
+            } else if (peak.signum() > 0) {
+                BigDecimal drawdown = peak.subtract(current).multiply(HUNDRED)
+                        .divide(peak, PERCENT_SCALE, Money.ROUNDING);
+                if (drawdown.compareTo(maxDrawdown) > 0) {
+                    maxDrawdown = drawdown;
+                }
+            }
+            previous = current;
+        }
+        
+        BigDecimal change = previous.subtract(first);
+        BigDecimal percentageChange = first.signum() == 0
+                ? null
+                : change.multiply(HUNDRED).divide(first, PERCENT_SCALE, Money.ROUNDING);
+        return new PerformanceSummaryDTO(portfolioId, history.get(0).getDate(), history.get(n - 1).getDate(),
+                first, previous, change, percentageChange, best, worst, maxDrawdown);
+    }
+}
@@ -0,0 +1,353 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.dto.RebalanceProposalDTO;
+import com.portfolio.management.dto.TargetAllocationDTO;
+import com.portfolio.management.dto.TransactionDTO;
+import com.portfolio.management.entity.Portfolio;
+import com.portfolio.management.entity.TargetAllocation;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.TargetAllocationRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the trades that bring a portfolio back to its target allocation.
+ * <p>
+ * Only asset types whose weight has drifted outside their tolerance band are traded to target;
+ * the resulting cash surplus or shortfall is absorbed by the in-band types furthest from target
+ * in the opposite direction, so the proposal is self-financing and touches as few types as
+ * possible. Holdings of types without a target are left alone. All arithmetic is done in
+ * {@link Money} minor units and basis points. Proposals are per asset type, so they carry no
+ * investment id.
+ */
+@Service
+public class RebalancingService {
+    
+    public static final String PROPOSED_BUY = "PROPOSED_BUY";
+    public static final String PROPOSED_SELL = "PROPOSED_SELL";
+    
+    private static final long BASIS_POINTS = 10_000L;
+    private static final long BATCH_LOCK_KEY = "portfolio.rebalancing.batch".hashCode();
+    private static final BigDecimal FULL_ALLOCATION = BigDecimal.valueOf(100);
+    private static final Logger log = LoggerFactory.getLogger(RebalancingService.class);
+    
+    private final PortfolioRepository portfolioRepository;
+    private final InvestmentRepository investmentRepository;
+    private final TargetAllocationRepository targetAllocationRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final int batchThreads;
+    private final int pageSize;
+    
+    @Autowired
+    public RebalancingService(PortfolioRepository portfolioRepository,
+                              InvestmentRepository investmentRepository,
+                              TargetAllocationRepository targetAllocationRepository,
+                              NamedParameterJdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ShardRouter shardRouter,
+                              @Value("${portfolio.rebalancing.batch-threads:8}") int batchThreads,
+                              @Value("${portfolio.rebalancing.page-size:1000}") int pageSize,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.portfolioRepository = portfolioRepository;
+        this.investmentRepository = investmentRepository;
+        this.targetAllocationRepository = targetAllocationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        // A shard's batch holds the lock and paging connections plus one per worker; leave at least
+        // half of that shard's pool to request traffic
+        int poolBudget = Math.max(1, poolSize / 2 - 2);
+        if (batchThreads > poolBudget) {
+            log.warn("Capping portfolio.rebalancing.batch-threads at {} for a connection pool of {}",
+                    poolBudget, poolSize);
+        }
+        this.batchThreads = Math.min(batchThreads, poolBudget);
+        this.pageSize = pageSize;
+    }
+    
+    public List<TargetAllocationDTO> getTargets(Long userId, Long portfolioId) {
+        return shardRouter.callForUser(userId, () -> transactionTemplate.execute(status -> {
+            requirePortfolio(userId, portfolioId);
+            return targetAllocationRepository.findByPortfolioId(portfolioId).stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        }));
+    }
+    
+    public List<TargetAllocationDTO> replaceTargets(Long userId, Long portfolioId, List<TargetAllocationDTO> targets) {
+        BigDecimal totalWeight = targets.stream()
+                .map(TargetAllocationDTO::getTargetWeight)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (!targets.isEmpty() && totalWeight.compareTo(FULL_ALLOCATION) != 0) {
+            throw new RuntimeException("Target weights must add up to 100");
+        }
+        if (targets.stream().map(TargetAllocationDTO::getAssetType).distinct().count() != targets.size()) {
+            throw new RuntimeException("Each asset type may only have one target");
+        }
+        
+        return shardRouter.callForUser(userId, () -> transactionTemplate.execute(status -> {
+            Portfolio portfolio = requirePortfolio(userId, portfolioId);
+            targetAllocationRepository.deleteByPortfolioId(portfolioId);
+            List<TargetAllocation> saved = new ArrayList<>();
+            for (TargetAllocationDTO dto : targets) {
+                TargetAllocation target = new TargetAllocation();
+                target.setAssetType(dto.getAssetType());
+                target.setTargetWeight(dto.getTargetWeight());
+                if (dto.getTolerance() != null) {
+                    target.setTolerance(dto.getTolerance());
+                }
+                target.setPortfolio(portfolio);
+                saved.add(targetAllocationRepository.save(target));
+            }
+            return saved.stream().map(this::convertToDTO).collect(Collectors.toList());
+        }));
+    }
+    
+    public RebalanceProposalDTO proposeRebalance(Long userId, Long portfolioId) {
+        return shardRouter.callForUser(userId, () -> transactionTemplate.execute(status -> {
+            requirePortfolio(userId, portfolioId);
+            List<Long> ids = List.of(portfolioId);
+            List<InvestmentRepository.HoldingRow> holdings = investmentRepository.findActiveHoldingsByType(ids);
+            List<TargetAllocation> targets = targetAllocationRepository.findByPortfolioId(portfolioId);
+            return plan(portfolioId, holdings, targets);
+        }));
+    }
+    
+    @Scheduled(cron = "${portfolio.rebalancing.cron:0 0 2 * * *}")
+    public void runScheduledBatch() {
+        long start = System.nanoTime();
+        int written = runBatch();
+        log.info("Rebalancing batch wrote {} proposed transactions in {} ms",
+                written, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Recomputes proposals for every active portfolio with targets, one page of portfolios per
+     * task, and replaces each page's previous proposals in a single batched transaction.
+     * Each shard is processed under a Postgres advisory lock, so when every instance fires the
+     * schedule at once, only the first to reach a shard rewrites its proposals.
+     *
+     * @return number of proposed transactions written
+     */
+    public int runBatch() {
+        AtomicInteger written = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(batchThreads);
+        Semaphore inFlight = new Semaphore(batchThreads * 2);
+        try {
+            for (Integer shardId : shardRouter.shardIds()) {
+                // the lock belongs to this connection's session and is held until every page is written
+                shardRouter.callOnShard(shardId, () -> jdbcTemplate.getJdbcTemplate().execute(
+                        (ConnectionCallback<Void>) connection -> {
+                            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                                log.info("Skipping rebalancing on shard {}: another instance holds the batch lock",
+                                        shardId);
+                                return null;
+                            }
+                            try {
+                                runShard(shardId, executor, inFlight, written);
+                            } finally {
+                                advisoryLock(connection, "pg_advisory_unlock");
+                            }
+                            return null;
+                        }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return written.get();
+    }
+    
+    private void runShard(int shardId, ExecutorService executor, Semaphore inFlight, AtomicInteger written) {
+        List<CompletableFuture<Void>> pages = new ArrayList<>();
+        long afterId = 0L;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = targetAllocationRepository.findActivePortfolioIdsAfter(cursor, PageRequest.of(0, pageSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            inFlight.acquireUninterruptibly();
+            pages.add(CompletableFuture.runAsync(() -> {
+                try {
+                    written.addAndGet(shardRouter.callOnShard(shardId, () -> writeProposals(ids)));
+                } catch (RuntimeException e) {
+                    log.error("Rebalancing failed for portfolios {}..{} on shard {}",
+                            ids.get(0), ids.get(ids.size() - 1), shardId, e);
+                } finally {
+                    inFlight.release();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(pages.toArray(new CompletableFuture<?>[0])).join();
+    }
+    
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select " + function + "(?)")) {
+            statement.setLong(1, BATCH_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+    
+    private int writeProposals(List<Long> portfolioIds) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, List<InvestmentRepository.HoldingRow>> holdings = investmentRepository
+                    .findActiveHoldingsByType(portfolioIds).stream()
+                    .collect(Collectors.groupingBy(InvestmentRepository.HoldingRow::getPortfolioId));
+            Map<Long, List<TargetAllocation>> targets = targetAllocationRepository
+                    .findByPortfolioIdIn(portfolioIds).stream()
+                    .collect(Collectors.groupingBy(target -> target.getPortfolio().getId()));
+            
+            LocalDateTime now = LocalDateTime.now();
+            List<SqlParameterSource> rows = new ArrayList<>();
+            for (Long portfolioId : portfolioIds) {
+                RebalanceProposalDTO proposal = plan(portfolioId,
+                        holdings.getOrDefault(portfolioId, List.of()),
+                        targets.getOrDefault(portfolioId, List.of()));
+                for (TransactionDTO transaction : proposal.getTransactions()) {
+                    rows.add(new MapSqlParameterSource()
+                            .addValue("type", transaction.getTransactionType())
+                            .addValue("amount", transaction.getAmount())
+                            .addValue("notes", transaction.getNotes())
+                            .addValue("date", now)
+                            .addValue("portfolioId", portfolioId)
+                            .addValue("investmentId", transaction.getInvestmentId()));
+                }
+            }
+            
+            jdbcTemplate.update("delete from transactions where transaction_type in (:types) " +
+                            "and portfolio_id in (:portfolioIds)",
+                    Map.of("types", List.of(PROPOSED_BUY, PROPOSED_SELL), "portfolioIds", portfolioIds));
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into transactions " +
+                                "(transaction_type, amount, notes, date, portfolio_id, investment_id) " +
+                                "values (:type, :amount, :notes, :date, :portfolioId, :investmentId)",
+                        rows.toArray(new SqlParameterSource[0]));
+            }
+            return rows.size();
+        });
+    }
+    
+    RebalanceProposalDTO plan(Long portfolioId, List<InvestmentRepository.HoldingRow> holdings,
+                              List<TargetAllocation> targets) {
+        Map<String, InvestmentRepository.HoldingRow> byType = new HashMap<>();
+        for (InvestmentRepository.HoldingRow holding : holdings) {
+            if (holding.getType() != null) {
+                byType.put(holding.getType(), holding);
+            }
+        }
+        
+        int n = targets.size();
+        long[] current = new long[n];
+        long total = 0L;
+        for (int i = 0; i < n; i++) {
+            InvestmentRepository.HoldingRow holding = byType.get(targets.get(i).getAssetType());
+            current[i] = holding != null ? Money.toUnits(holding.getValue()) : 0L;
+            total = Math.addExact(total, current[i]);
+        }
+        if (total <= 0L) {
+            return new RebalanceProposalDTO(portfolioId, BigDecimal.valueOf(total, Money.SCALE), List.of());
+        }
+        
+        long[] delta = new long[n];
+        boolean[] trade = new boolean[n];
+        long net = 0L;
+        for (int i = 0; i < n; i++) {
+            TargetAllocation target = targets.get(i);
+            long desired = Money.divideHalfEven(
+                    Math.multiplyExact(total, Money.toUnits(target.getTargetWeight())), BASIS_POINTS);
+            long band = Money.divideHalfEven(
+                    Math.multiplyExact(total, Money.toUnits(target.getTolerance())), BASIS_POINTS);
+            delta[i] = desired - current[i];
+            if (Math.abs(delta[i]) > band) {
+                trade[i] = true;
+                net += delta[i];
+            }
+        }
+        
+        // Finance the out-of-band trades from in-band types that are off target the other way
+        long needed = -net;
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!trade[i] && delta[i] != 0L && Long.signum(delta[i]) == Long.signum(needed)) {
+                offsets.add(i);
+            }
+        }
+        offsets.sort(Comparator.comparingLong(i -> -Math.abs(delta[i])));
+        for (int i : offsets) {
+            if (needed == 0L) {
+                break;
+            }
+            long amount = Math.abs(delta[i]) < Math.abs(needed) ? delta[i] : needed;
+            delta[i] = amount;
+            trade[i] = true;
+            needed -= amount;
+        }
+        
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!trade[i] || delta[i] == 0L) {
+                continue;
+            }
+            String assetType = targets.get(i).getAssetType();
+            TransactionDTO transaction = new TransactionDTO();
+            transaction.setTransactionType(delta[i] > 0 ? PROPOSED_BUY : PROPOSED_SELL);
+            transaction.setAmount(BigDecimal.valueOf(Math.abs(delta[i]), Money.SCALE));
+            transaction.setNotes("Rebalance " + assetType + " toward " + targets.get(i).getTargetWeight() + "%");
+            transaction.setPortfolioId(portfolioId);
+            transactions.add(transaction);
+        }
+        return new RebalanceProposalDTO(portfolioId, BigDecimal.valueOf(total, Money.SCALE), transactions);
+    }
+    
+    private Portfolio requirePortfolio(Long userId, Long portfolioId) {
+        return portfolioRepository.findByIdAndUserId(portfolioId, userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+    }
+    
+    private TargetAllocationDTO convertToDTO(TargetAllocation target) {
+        TargetAllocationDTO dto = new TargetAllocationDTO();
+        dto.setId(target.getId());
+        dto.setAssetType(target.getAssetType());
+        dto.setTargetWeight(target.getTargetWeight());
+        dto.setTolerance(target.getTolerance());
+        dto.setPortfolioId(target.getPortfolio().getId());
+        return dto;
+    }
+}
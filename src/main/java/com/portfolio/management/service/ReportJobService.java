@@ -0,0 +1,423 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.config.ReportProperties;
+import com.portfolio.management.dto.ReportJobDTO;
+import com.portfolio.management.dto.ReportRequestDTO;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PerformanceRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.TransactionRepository;
+import com.portfolio.management.report.CsvReportSink;
+import com.portfolio.management.report.PdfReportSink;
+import com.portfolio.management.report.ReportSink;
+import com.portfolio.management.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous portfolio reports (holdings, transactions and performance over a period).
+ * <p>
+ * Jobs run on a bounded pool and stream rows from database cursors straight into the output
+ * file, so memory use does not grow with report size. Finished files are kept on local disk
+ * under a name derived from the portfolio, period, format and a fingerprint of the underlying
+ * data; a job whose fingerprint matches an existing file completes without writing. Each job
+ * reads in a single repeatable-read transaction so the report is internally consistent, and
+ * the worker takes the fingerprint in that same snapshot, so submitting never scans report data.
+ * Jobs are visible only to the user who submitted them.
+ */
+@Service
+public class ReportJobService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    
+    // Bump when the report layout changes so stale files are not served
+    private static final String LAYOUT_VERSION = "2";
+    
+    // Rebalancing proposals are suggestions, not executed trades
+    private static final List<String> PROPOSAL_TYPES = List.of(RebalancingService.PROPOSED_BUY,
+            RebalancingService.PROPOSED_SELL);
+    
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+    
+    private final PortfolioRepository portfolioRepository;
+    private final InvestmentRepository investmentRepository;
+    private final TransactionRepository transactionRepository;
+    private final PerformanceRepository performanceRepository;
+    private final ShardRouter shardRouter;
+    private final ReportProperties properties;
+    private final TransactionTemplate snapshotTransaction;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public ReportJobService(PortfolioRepository portfolioRepository,
+                            InvestmentRepository investmentRepository,
+                            TransactionRepository transactionRepository,
+                            PerformanceRepository performanceRepository,
+                            ShardRouter shardRouter,
+                            ReportProperties properties,
+                            PlatformTransactionManager transactionManager) {
+        this.portfolioRepository = portfolioRepository;
+        this.investmentRepository = investmentRepository;
+        this.transactionRepository = transactionRepository;
+        this.performanceRepository = performanceRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    public ReportJobDTO submit(Long userId, Long portfolioId, ReportRequestDTO request) {
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        
+        shardRouter.runForUser(userId, () -> portfolioRepository.findByIdAndUserId(portfolioId, userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found")));
+        
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), userId, portfolioId, request);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RuntimeException("Report queue is full, try again later");
+        }
+        return convertToDTO(job);
+    }
+    
+    public ReportJobDTO getJob(Long userId, String jobId) {
+        return convertToDTO(findJob(userId, jobId));
+    }
+    
+    public ReportJobDTO cancel(Long userId, String jobId) {
+        ReportJob job = findJob(userId, jobId);
+        if (job.finish(Status.QUEUED, Status.CANCELLED) || job.finish(Status.RUNNING, Status.CANCELLED)) {
+            // Running jobs notice the status between rows; interrupting would break the JDBC connection
+            Future<?> future = job.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        return convertToDTO(job);
+    }
+    
+    /**
+     * Returns the finished report file, or throws if the job has not completed.
+     */
+    public Path getFile(Long userId, String jobId) {
+        ReportJob job = findJob(userId, jobId);
+        if (job.status.get() != Status.COMPLETED) {
+            throw new RuntimeException("Report is not ready: " + job.status.get());
+        }
+        if (!Files.exists(job.file)) {
+            throw new RuntimeException("Report file has expired");
+        }
+        return job.file;
+    }
+    
+    public String getFileName(Long userId, String jobId) {
+        ReportJob job = findJob(userId, jobId);
+        return "portfolio-" + job.portfolioId + "-" + job.request.getStartDate() + "-" + job.request.getEndDate()
+                + "." + job.request.getFormat().getExtension();
+    }
+    
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        LocalDateTime jobCutoff = LocalDateTime.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(jobCutoff));
+        
+        Path directory = properties.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> isOlderThan(file, cutoff))
+                    .forEach(ReportJobService::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not purge report directory {}", directory, e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        for (ReportJob job : jobs.values()) {
+            if (!job.finish(Status.QUEUED, Status.CANCELLED)) {
+                job.finish(Status.RUNNING, Status.CANCELLED);
+            }
+        }
+    }
+    
+    private void run(ReportJob job) {
+        if (!job.status.compareAndSet(Status.QUEUED, Status.RUNNING)) {
+            return;
+        }
+        try {
+            Path file = shardRouter.callForUser(job.userId, () -> snapshotTransaction.execute(status -> {
+                Path cached = cachePath(job.portfolioId, job.request, version(job.portfolioId, job.request));
+                if (Files.exists(cached)) {
+                    touch(cached);
+                    job.cached = true;
+                } else {
+                    write(job, cached);
+                }
+                return cached;
+            }));
+            job.file = file;
+            job.sizeBytes = Files.size(file);
+            job.finish(Status.RUNNING, Status.COMPLETED);
+        } catch (ReportCancelledException e) {
+            log.info("Report job {} cancelled after {} rows", job.id, job.rows);
+        } catch (Exception e) {
+            log.warn("Report job {} for portfolio {} failed", job.id, job.portfolioId, e);
+            job.error = e.getMessage();
+            job.finish(Status.RUNNING, Status.FAILED);
+        }
+    }
+    
+    // Streams the report into a temporary file and moves it to the cache path once complete
+    private void write(ReportJob job, Path target) {
+        Path partial = null;
+        try {
+            Files.createDirectories(target.getParent());
+            partial = Files.createTempFile(properties.getDirectory(), "report-", ".part");
+            try (OutputStream out = Files.newOutputStream(partial);
+                 ReportSink sink = openSink(out, job)) {
+                writeHoldings(job, sink);
+                writeTransactions(job, sink);
+                writePerformance(job, sink);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            partial = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (partial != null) {
+                deleteQuietly(partial);
+            }
+        }
+    }
+    
+    private ReportSink openSink(OutputStream out, ReportJob job) throws IOException {
+        if (job.request.getFormat() == ReportRequestDTO.ReportFormat.PDF) {
+            String title = "Portfolio " + job.portfolioId + " report, "
+                    + job.request.getStartDate() + " to " + job.request.getEndDate();
+            return new PdfReportSink(out, title, properties.getPdfFlushRows());
+        }
+        return new CsvReportSink(out);
+    }
+    
+    private void writeHoldings(ReportJob job, ReportSink sink) throws IOException {
+        sink.section("Holdings (current)",
+                "ID", "Name", "Type", "Risk Level", "Amount", "Current Value", "Purchase Date");
+        try (Stream<InvestmentRepository.ReportRow> rows = investmentRepository.streamActiveForReport(job.portfolioId)) {
+            Iterator<InvestmentRepository.ReportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                InvestmentRepository.ReportRow row = it.next();
+                job.checkCancelled();
+                sink.row(row.getId(), row.getName(), row.getType(), row.getRiskLevel(),
+                        row.getAmount(), row.getCurrentValue(), row.getPurchaseDate());
+                job.rows++;
+            }
+        }
+    }
+    
+    private void writeTransactions(ReportJob job, ReportSink sink) throws IOException {
+        sink.section("Transactions", "ID", "Date", "Type", "Amount", "Investment ID", "Notes");
+        try (Stream<TransactionRepository.ReportRow> rows = transactionRepository.streamForReport(job.portfolioId,
+                job.request.getStartDate().atStartOfDay(), job.request.getEndDate().plusDays(1).atStartOfDay(),
+                PROPOSAL_TYPES)) {
+            Iterator<TransactionRepository.ReportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                TransactionRepository.ReportRow row = it.next();
+                job.checkCancelled();
+                sink.row(row.getId(), row.getDate(), row.getTransactionType(), row.getAmount(),
+                        row.getInvestmentId(), row.getNotes());
+                job.rows++;
+            }
+        }
+    }
+    
+    private void writePerformance(ReportJob job, ReportSink sink) throws IOException {
+        sink.section("Performance", "Date", "Total Value", "Daily Change", "Percentage Change");
+        try (Stream<PerformanceRepository.ReportRow> rows = performanceRepository.streamForReport(job.portfolioId,
+                job.request.getStartDate(), job.request.getEndDate())) {
+            Iterator<PerformanceRepository.ReportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                PerformanceRepository.ReportRow row = it.next();
+                job.checkCancelled();
+                sink.row(row.getDate(), row.getTotalValue(), row.getDailyChange(), row.getPercentageChange());
+                job.rows++;
+            }
+        }
+    }
+    
+    // Each section's digest covers every value it prints, so any edit to reported data changes the version
+    private String version(Long portfolioId, ReportRequestDTO request) {
+        LocalDate start = request.getStartDate();
+        LocalDate end = request.getEndDate();
+        String fingerprint = String.join("|", LAYOUT_VERSION,
+                investmentRepository.findActiveReportDigest(portfolioId),
+                transactionRepository.findReportDigest(portfolioId, start.atStartOfDay(),
+                        end.plusDays(1).atStartOfDay(), PROPOSAL_TYPES),
+                performanceRepository.findReportDigest(portfolioId, start, end));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private Path cachePath(Long portfolioId, ReportRequestDTO request, String version) {
+        return properties.getDirectory()
+                .resolve(String.valueOf(portfolioId))
+                .resolve(request.getStartDate() + "_" + request.getEndDate() + "_" + version
+                        + "." + request.getFormat().getExtension());
+    }
+    
+    // Another user's job is reported as missing rather than forbidden, so job ids cannot be probed
+    private ReportJob findJob(Long userId, String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new RuntimeException("Report job not found");
+        }
+        return job;
+    }
+    
+    // Refreshes the modification time so frequently requested files survive purging
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Could not touch {}", file, e);
+        }
+    }
+    
+    private static boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}", file, e);
+        }
+    }
+    
+    private ReportJobDTO convertToDTO(ReportJob job) {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setJobId(job.id);
+        dto.setPortfolioId(job.portfolioId);
+        dto.setFormat(job.request.getFormat());
+        dto.setStartDate(job.request.getStartDate());
+        dto.setEndDate(job.request.getEndDate());
+        dto.setStatus(job.status.get().name());
+        dto.setCached(job.cached);
+        dto.setRows(job.rows);
+        dto.setSizeBytes(job.sizeBytes);
+        dto.setError(job.error);
+        dto.setSubmittedAt(job.submittedAt);
+        dto.setCompletedAt(job.completedAt);
+        return dto;
+    }
+    
+    private static class ReportJob {
+        final String id;
+        final Long userId;
+        final Long portfolioId;
+        final ReportRequestDTO request;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+        volatile Future<?> future;
+        volatile Path file;
+        volatile boolean cached;
+        // Written only by the worker; read by pollers as a progress hint
+        volatile long rows;
+        volatile Long sizeBytes;
+        volatile String error;
+        volatile LocalDateTime completedAt;
+        
+        ReportJob(String id, Long userId, Long portfolioId, ReportRequestDTO request) {
+            this.id = id;
+            this.userId = userId;
+            this.portfolioId = portfolioId;
+            this.request = request;
+        }
+        
+        boolean finish(Status expected, Status terminal) {
+            if (!status.compareAndSet(expected, terminal)) {
+                return false;
+            }
+            completedAt = LocalDateTime.now();
+            return true;
+        }
+        
+        void checkCancelled() {
+            if (status.get() == Status.CANCELLED) {
+                throw new ReportCancelledException();
+            }
+        }
+    }
+    
+    private static class ReportCancelledException extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        ReportCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.config.RiskProperties;
+import com.portfolio.management.dto.RiskReportDTO;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PerformanceRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo value-at-risk and expected shortfall per portfolio.
+ * <p>
+ * Daily returns are resampled from the portfolio's own performance history when it is long
+ * enough, otherwise drawn from the per-type assumptions in {@link RiskProperties} weighted by
+ * current holdings. The parametric model correlates asset types through one common factor, so
+ * every pair of types has the same correlation {@code portfolio.risk.correlation}; it does not
+ * model a full covariance matrix. Paths are split into a fixed number of chunks, each with its own
+ * {@link SplittableRandom} split from the seed, so results do not depend on the number of cores.
+ * The inner loop works on primitive arrays only. Holdings and history are read in one
+ * repeatable-read transaction, and reports are cached until either of them changes.
+ */
+@Service
+public class RiskSimulationService {
+    
+    public static final String MODEL_HISTORICAL = "HISTORICAL_BOOTSTRAP";
+    public static final String MODEL_PARAMETRIC = "PARAMETRIC_BY_TYPE_ONE_FACTOR";
+    
+    private static final int CHUNKS = 64;
+    private static final double[] PERCENTILES = {1, 5, 25, 50, 75, 95, 99};
+    
+    private final PortfolioRepository portfolioRepository;
+    private final InvestmentRepository investmentRepository;
+    private final PerformanceRepository performanceRepository;
+    private final ShardRouter shardRouter;
+    private final RiskProperties properties;
+    private final TransactionTemplate snapshotTransaction;
+    private final Map<CacheKey, CachedReport> cache;
+    
+    @Autowired
+    public RiskSimulationService(PortfolioRepository portfolioRepository,
+                                 InvestmentRepository investmentRepository,
+                                 PerformanceRepository performanceRepository,
+                                 ShardRouter shardRouter,
+                                 RiskProperties properties,
+                                 PlatformTransactionManager transactionManager) {
+        if (properties.getCorrelation() < 0 || properties.getCorrelation() > 1) {
+            throw new IllegalStateException("portfolio.risk.correlation must be between 0 and 1");
+        }
+        this.portfolioRepository = portfolioRepository;
+        this.investmentRepository = investmentRepository;
+        this.performanceRepository = performanceRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        int cacheSize = properties.getCacheSize();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedReport> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    public RiskReportDTO simulate(Long userId, Long portfolioId, Integer horizonDays, Integer paths, Long seed) {
+        int horizon = horizonDays != null ? horizonDays : properties.getDefaultHorizonDays();
+        int pathCount = paths != null ? paths : properties.getDefaultPaths();
+        long rootSeed = seed != null ? seed : portfolioId;
+        if (horizon < 1 || pathCount < 100 || pathCount > properties.getMaxPaths()) {
+            throw new RuntimeException("Horizon must be at least 1 day and paths between 100 and "
+                    + properties.getMaxPaths());
+        }
+        
+        CacheKey key = new CacheKey(portfolioId, horizon, pathCount, rootSeed);
+        return shardRouter.callForUser(userId, () -> {
+            // the simulation itself runs after the transaction, so it holds no connection
+            Inputs inputs = snapshotTransaction.execute(status -> {
+                portfolioRepository.findByIdAndUserId(portfolioId, userId)
+                        .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+                
+                List<InvestmentRepository.HoldingRow> holdings = investmentRepository
+                        .findActiveHoldingsByType(List.of(portfolioId));
+                PerformanceRepository.SeriesVersion series = performanceRepository.findSeriesVersion(portfolioId);
+                String version = version(holdings, series);
+                CachedReport cached = cache.get(key);
+                if (cached != null && cached.version().equals(version)) {
+                    return new Inputs(version, holdings, null, cached.report());
+                }
+                
+                double[] history = series.getCount() > properties.getMinHistory()
+                        ? dailyReturns(performanceRepository.findTotalValuesByPortfolioId(portfolioId))
+                        : null;
+                return new Inputs(version, holdings, history, null);
+            });
+            if (inputs.cached() != null) {
+                return inputs.cached();
+            }
+            
+            RiskReportDTO report = run(portfolioId, inputs.holdings(), inputs.history(), horizon, pathCount, rootSeed);
+            cache.put(key, new CachedReport(inputs.version(), report));
+            return report;
+        });
+    }
+    
+    private RiskReportDTO run(Long portfolioId, List<InvestmentRepository.HoldingRow> holdings, double[] history,
+                              int horizon, int pathCount, long rootSeed) {
+        int types = holdings.size();
+        double[] weights = new double[types];
+        double[] drifts = new double[types];
+        double[] volatilities = new double[types];
+        double total = 0;
+        for (InvestmentRepository.HoldingRow holding : holdings) {
+            total += holding.getValue().doubleValue();
+        }
+        double days = properties.getTradingDaysPerYear();
+        double factorLoading = Math.sqrt(properties.getCorrelation());
+        double idiosyncraticLoading = Math.sqrt(1 - properties.getCorrelation());
+        for (int i = 0; i < types; i++) {
+            InvestmentRepository.HoldingRow holding = holdings.get(i);
+            RiskProperties.Assumption assumption = properties.getAssumptions()
+                    .getOrDefault(holding.getType(), properties.getDefaultAssumption());
+            weights[i] = total > 0 ? holding.getValue().doubleValue() / total : 0;
+            drifts[i] = assumption.getAnnualReturn() / days;
+            volatilities[i] = assumption.getAnnualVolatility() / Math.sqrt(days);
+        }
+        
+        double[] terminal = new double[pathCount];
+        SplittableRandom root = new SplittableRandom(rootSeed);
+        SplittableRandom[] streams = new SplittableRandom[CHUNKS];
+        for (int c = 0; c < CHUNKS; c++) {
+            streams[c] = root.split();
+        }
+        int chunkSize = (pathCount + CHUNKS - 1) / CHUNKS;
+        double startValue = total;
+        IntStream.range(0, CHUNKS).parallel().forEach(c -> {
+            int from = c * chunkSize;
+            int to = Math.min(pathCount, from + chunkSize);
+            SplittableRandom random = streams[c];
+            for (int p = from; p < to; p++) {
+                double value = startValue;
+                for (int d = 0; d < horizon; d++) {
+                    double r;
+                    if (history != null) {
+                        r = history[random.nextInt(history.length)];
+                    } else {
+                        double common = factorLoading * random.nextGaussian();
+                        r = 0;
+                        for (int t = 0; t < types; t++) {
+                            double shock = common + idiosyncraticLoading * random.nextGaussian();
+                            r += weights[t] * (drifts[t] + volatilities[t] * shock);
+                        }
+                    }
+                    value *= 1 + r;
+                }
+                terminal[p] = value;
+            }
+        });
+        
+        Arrays.parallelSort(terminal);
+        Map<String, BigDecimal> percentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + (int) percentile, money(terminal[index(pathCount, percentile / 100)]));
+        }
+        return new RiskReportDTO(portfolioId, money(startValue), horizon, pathCount, rootSeed,
+                history != null ? MODEL_HISTORICAL : MODEL_PARAMETRIC,
+                money(startValue - terminal[index(pathCount, 0.05)]),
+                money(startValue - terminal[index(pathCount, 0.01)]),
+                money(startValue - tailMean(terminal, index(pathCount, 0.05))),
+                money(startValue - tailMean(terminal, index(pathCount, 0.01))),
+                percentiles);
+    }
+    
+    private static double[] dailyReturns(List<BigDecimal> values) {
+        double[] returns = new double[Math.max(0, values.size() - 1)];
+        int n = 0;
+        for (int i = 1; i < values.size(); i++) {
+            double previous = values.get(i - 1).doubleValue();
+            if (previous > 0) {
+                returns[n++] = values.get(i).doubleValue() / previous - 1;
+            }
+        }
+        return n > 0 ? Arrays.copyOf(returns, n) : null;
+    }
+    
+    private static int index(int size, double quantile) {
+        return Math.min(size - 1, (int) Math.floor(quantile * size));
+    }
+    
+    private static double tailMean(double[] sorted, int cutoff) {
+        double sum = 0;
+        for (int i = 0; i <= cutoff; i++) {
+            sum += sorted[i];
+        }
+        return sum / (cutoff + 1);
+    }
+    
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(Money.SCALE, Money.ROUNDING);
+    }
+    
+    private static String version(List<InvestmentRepository.HoldingRow> holdings,
+                                  PerformanceRepository.SeriesVersion series) {
+        StringBuilder version = new StringBuilder();
+        holdings.stream()
+                .sorted(Comparator.comparing(InvestmentRepository.HoldingRow::getType,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(holding -> version.append(holding.getType()).append('=')
+                        .append(holding.getValue().toPlainString()).append(';'));
+        return version.append(series.getCount()).append('@').append(Objects.toString(series.getLastDate()))
+                .toString();
+    }
+    
+    private record CacheKey(Long portfolioId, int horizonDays, int paths, long seed) {
+    }
+    
+    private record CachedReport(String version, RiskReportDTO report) {
+    }
+    
+    private record Inputs(String version, List<InvestmentRepository.HoldingRow> holdings, double[] history,
+                          RiskReportDTO cached) {
+    }
+}
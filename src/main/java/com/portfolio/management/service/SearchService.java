@@ -0,0 +1,172 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.dto.SearchHitDTO;
+import com.portfolio.management.entity.User;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.UserRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead search over investments and users backed by in-process prefix indexes.
+ * Investments are indexed per owning user so a search can never see another user's holdings.
+ * The indexes are warmed once at startup and then kept current by {@code SearchIndexListener}.
+ * Owners are tracked per portfolio, so an investment update can be indexed from its portfolio id
+ * without loading the portfolio.
+ */
+@Service
+public class SearchService {
+    
+    public static final String INVESTMENT = "INVESTMENT";
+    public static final String USER = "USER";
+    
+    private static final int MAX_LIMIT = 100;
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+    
+    private final InvestmentRepository investmentRepository;
+    private final UserRepository userRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate ownerLookup;
+    
+    private final PrefixIndex userIndex = new PrefixIndex();
+    private final Map<Long, PrefixIndex> investmentIndexes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> investmentOwners = new ConcurrentHashMap<>();
+    private final Map<Long, Long> portfolioOwners = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public SearchService(InvestmentRepository investmentRepository,
+                         UserRepository userRepository,
+                         PortfolioRepository portfolioRepository,
+                         ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager) {
+        this.investmentRepository = investmentRepository;
+        this.userRepository = userRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // runs from afterCommit callbacks, where the finished transaction can no longer be joined
+        this.ownerLookup = new TransactionTemplate(transactionManager);
+        this.ownerLookup.setReadOnly(true);
+        this.ownerLookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        for (Integer shardId : shardRouter.shardIds()) {
+            shardRouter.callOnShard(shardId, () -> readOnlyTransaction.execute(status -> {
+                try (Stream<UserRepository.SearchRow> rows = userRepository.streamSearchRows()) {
+                    rows.forEach(row -> indexUser(row.getId(), row.getUsername(), row.getName(), row.getEmail()));
+                }
+                try (Stream<InvestmentRepository.SearchRow> rows = investmentRepository.streamSearchRows()) {
+                    rows.forEach(row -> indexInvestment(row.getId(), row.getPortfolioId(), row.getUserId(),
+                            row.getName(), row.getDescription(), row.getType()));
+                }
+                return null;
+            }));
+        }
+        log.info("Search indexes warmed: {} users, {} investments in {} ms",
+                userIndex.size(), investmentOwners.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    public List<SearchHitDTO> searchInvestments(Long userId, String query, int limit) {
+        PrefixIndex index = investmentIndexes.get(userId);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return toHits(index, INVESTMENT, query, limit);
+    }
+    
+    public List<SearchHitDTO> searchUsers(String query, int limit) {
+        return toHits(userIndex, USER, query, limit);
+    }
+    
+    /**
+     * Indexes an investment under its owner. {@code userId} may be null when the caller only knows
+     * the portfolio; the owner is then taken from earlier index entries or looked up on the
+     * current shard.
+     */
+    public void indexInvestment(Long id, Long portfolioId, Long userId, String name, String description, String type) {
+        Long owner = userId != null ? userId : ownerOf(portfolioId);
+        if (owner == null) {
+            log.warn("Not indexing investment {}: owner of portfolio {} not found", id, portfolioId);
+            return;
+        }
+        portfolioOwners.put(portfolioId, owner);
+        Long previousOwner = investmentOwners.put(id, owner);
+        if (previousOwner != null && !previousOwner.equals(owner)) {
+            PrefixIndex previous = investmentIndexes.get(previousOwner);
+            if (previous != null) {
+                previous.remove(id);
+            }
+        }
+        investmentIndexes.computeIfAbsent(owner, key -> new PrefixIndex())
+                .put(id, name, name, description, type);
+    }
+    
+    public void removeInvestment(Long id) {
+        Long owner = investmentOwners.remove(id);
+        if (owner != null) {
+            PrefixIndex index = investmentIndexes.get(owner);
+            if (index != null) {
+                index.remove(id);
+            }
+        }
+    }
+    
+    public void indexUser(User user) {
+        indexUser(user.getId(), user.getUsername(), user.getName(), user.getEmail());
+    }
+    
+    public void indexUser(Long id, String username, String name, String email) {
+        String label = name != null && !name.isBlank() ? name : username;
+        userIndex.put(id, label, username, name, email);
+    }
+    
+    public void removeUser(Long id) {
+        userIndex.remove(id);
+        investmentIndexes.remove(id);
+        investmentOwners.values().removeIf(id::equals);
+        portfolioOwners.values().removeIf(id::equals);
+    }
+    
+    private Long ownerOf(Long portfolioId) {
+        Long owner = portfolioOwners.get(portfolioId);
+        if (owner != null) {
+            return owner;
+        }
+        return ownerLookup.execute(status -> portfolioRepository.findOwnersByIdIn(List.of(portfolioId)).stream()
+                .map(PortfolioRepository.OwnerRow::getUserId)
+                .findFirst()
+                .orElse(null));
+    }
+    
+    private List<SearchHitDTO> toHits(PrefixIndex index, String type, String query, int limit) {
+        List<Long> ids = index.search(query, Math.min(limit, MAX_LIMIT));
+        List<SearchHitDTO> hits = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            hits.add(new SearchHitDTO(id, type, index.label(id)));
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,398 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.config.GroupCommitProperties;
+import com.portfolio.management.dto.PostingMetricsDTO;
+import com.portfolio.management.dto.TransactionCreateDTO;
+import com.portfolio.management.dto.TransactionDTO;
+import com.portfolio.management.entity.Investment;
+import com.portfolio.management.entity.Portfolio;
+import com.portfolio.management.entity.Transaction;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.TransactionRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Posts transactions either one database transaction per request or through a group-commit
+ * writer.
+ * <p>
+ * In group-commit mode postings are queued on one of several lanes chosen by portfolio id. Each
+ * lane's writer thread takes the first waiting posting, keeps collecting until it has
+ * {@code maxBatch} postings or the first one has waited {@code maxLatency}, and then writes the
+ * batch with one batched insert per shard in a single database transaction. Callers' futures
+ * complete only after that commit. A lane commits its batches one after another, so postings for
+ * a portfolio are stored in the order they were submitted. If a batch fails, its postings are
+ * retried one by one so a single bad posting does not fail the others.
+ * <p>
+ * Both paths record latency and throughput so they can be compared under the same load.
+ */
+@Service
+public class TransactionPostingService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionPostingService.class);
+    
+    public static final String MODE_PER_REQUEST = "per-request";
+    public static final String MODE_GROUP_COMMIT = "group-commit";
+    
+    private static final String INSERT_SQL = "insert into transactions " +
+            "(transaction_type, amount, notes, date, portfolio_id, investment_id) " +
+            "values (:type, :amount, :notes, :date, :portfolioId, :investmentId)";
+    
+    private final TransactionRepository transactionRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final InvestmentRepository investmentRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final GroupCommitProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BlockingQueue<Pending>> lanes = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private final PathMetrics perRequestMetrics = new PathMetrics();
+    private final PathMetrics groupCommitMetrics = new PathMetrics();
+    private volatile boolean running = true;
+    
+    @Autowired
+    public TransactionPostingService(TransactionRepository transactionRepository,
+                                     PortfolioRepository portfolioRepository,
+                                     InvestmentRepository investmentRepository,
+                                     NamedParameterJdbcTemplate jdbcTemplate,
+                                     ShardRouter shardRouter,
+                                     GroupCommitProperties properties,
+                                     PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.investmentRepository = investmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < Math.max(1, properties.getLanes()); i++) {
+            BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+            Thread writer = new Thread(() -> drain(queue), "transaction-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            lanes.add(queue);
+            writers.add(writer);
+        }
+    }
+    
+    /**
+     * Posts a transaction using group commit when {@code groupCommit} is true, or the configured
+     * default when it is null.
+     */
+    public CompletableFuture<TransactionDTO> post(Long userId, TransactionCreateDTO dto, Boolean groupCommit) {
+        boolean grouped = groupCommit != null ? groupCommit : properties.isEnabled();
+        return grouped ? enqueue(userId, dto) : CompletableFuture.completedFuture(postNow(userId, dto));
+    }
+    
+    public TransactionDTO postNow(Long userId, TransactionCreateDTO dto) {
+        long start = System.nanoTime();
+        try {
+            TransactionDTO saved = shardRouter.callForUser(userId,
+                    () -> transactionTemplate.execute(status -> save(userId, dto)));
+            perRequestMetrics.committed(1, System.nanoTime() - start);
+            return saved;
+        } catch (RuntimeException e) {
+            perRequestMetrics.failures.increment();
+            throw e;
+        }
+    }
+    
+    public CompletableFuture<TransactionDTO> enqueue(Long userId, TransactionCreateDTO dto) {
+        if (!running) {
+            throw new RuntimeException("Transaction writer is shutting down");
+        }
+        Pending pending = new Pending(userId, dto, LocalDateTime.now(), System.nanoTime(), new CompletableFuture<>());
+        BlockingQueue<Pending> lane = lanes.get(Math.floorMod(Long.hashCode(dto.getPortfolioId()), lanes.size()));
+        if (!lane.offer(pending)) {
+            groupCommitMetrics.failures.increment();
+            throw new RuntimeException("Transaction queue is full, try again later");
+        }
+        return pending.future();
+    }
+    
+    public List<PostingMetricsDTO> getMetrics() {
+        return List.of(perRequestMetrics.toDTO(MODE_PER_REQUEST), groupCommitMetrics.toDTO(MODE_GROUP_COMMIT));
+    }
+    
+    public void resetMetrics() {
+        perRequestMetrics.reset();
+        groupCommitMetrics.reset();
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        RuntimeException stopped = new RuntimeException("Transaction writer stopped");
+        for (BlockingQueue<Pending> lane : lanes) {
+            List<Pending> leftover = new ArrayList<>();
+            lane.drainTo(leftover);
+            leftover.forEach(pending -> pending.future().completeExceptionally(stopped));
+        }
+    }
+    
+    private TransactionDTO save(Long userId, TransactionCreateDTO dto) {
+        Portfolio portfolio = portfolioRepository.findByIdAndUserId(dto.getPortfolioId(), userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+        Investment investment = null;
+        if (dto.getInvestmentId() != null) {
+            investment = investmentRepository.findById(dto.getInvestmentId())
+                    .filter(found -> found.getPortfolio().getId().equals(portfolio.getId()))
+                    .orElseThrow(() -> new RuntimeException("Investment not found in portfolio"));
+        }
+        
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(dto.getTransactionType());
+        transaction.setAmount(dto.getAmount());
+        transaction.setNotes(dto.getNotes());
+        transaction.setDate(LocalDateTime.now());
+        transaction.setPortfolio(portfolio);
+        transaction.setInvestment(investment);
+        return convertToDTO(transactionRepository.save(transaction));
+    }
+    
+    private void drain(BlockingQueue<Pending> queue) {
+        int maxBatch = Math.max(1, properties.getMaxBatch());
+        long maxLatencyNanos = properties.getMaxLatency().toNanos();
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + maxLatencyNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new RuntimeException("Transaction writer interrupted"));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Transaction writer failed to commit {} postings", batch.size(), e);
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void commit(List<Pending> batch) {
+        Map<Integer, List<Pending>> byShard = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byShard.computeIfAbsent(shardRouter.shardForUser(pending.userId()), shardId -> new ArrayList<>())
+                    .add(pending);
+        }
+        for (Map.Entry<Integer, List<Pending>> entry : byShard.entrySet()) {
+            int shardId = entry.getKey();
+            List<Pending> postings = entry.getValue();
+            try {
+                write(shardId, postings);
+            } catch (RuntimeException e) {
+                if (postings.size() == 1) {
+                    fail(postings, e);
+                    continue;
+                }
+                log.warn("Group commit of {} postings on shard {} failed, retrying individually",
+                        postings.size(), shardId, e);
+                for (Pending pending : postings) {
+                    try {
+                        write(shardId, List.of(pending));
+                    } catch (RuntimeException single) {
+                        fail(List.of(pending), single);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void write(int shardId, List<Pending> postings) {
+        Outcome outcome = shardRouter.callOnShard(shardId,
+                () -> transactionTemplate.execute(status -> insert(postings)));
+        // Only reached once the transaction has committed
+        long now = System.nanoTime();
+        for (int i = 0; i < outcome.accepted().size(); i++) {
+            Pending pending = outcome.accepted().get(i);
+            groupCommitMetrics.latency.recordNanos(now - pending.enqueuedNanos());
+            pending.future().complete(outcome.saved().get(i));
+        }
+        if (!outcome.accepted().isEmpty()) {
+            groupCommitMetrics.commits.increment();
+            groupCommitMetrics.committedItems.add(outcome.accepted().size());
+        }
+        for (Rejection rejection : outcome.rejected()) {
+            groupCommitMetrics.failures.increment();
+            rejection.pending().future().completeExceptionally(rejection.error());
+        }
+    }
+    
+    private Outcome insert(List<Pending> postings) {
+        Set<Long> portfolioIds = postings.stream()
+                .map(pending -> pending.dto().getPortfolioId())
+                .collect(Collectors.toSet());
+        Map<Long, Long> owners = portfolioRepository.findOwnersByIdIn(portfolioIds).stream()
+                .collect(Collectors.toMap(PortfolioRepository.OwnerRow::getId, PortfolioRepository.OwnerRow::getUserId));
+        Set<Long> investmentIds = postings.stream()
+                .map(pending -> pending.dto().getInvestmentId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Long> investmentPortfolios = investmentIds.isEmpty() ? Map.of()
+                : investmentRepository.findPortfolioIdsByIdIn(investmentIds).stream()
+                .collect(Collectors.toMap(InvestmentRepository.PortfolioRow::getId,
+                        InvestmentRepository.PortfolioRow::getPortfolioId));
+        
+        List<Pending> accepted = new ArrayList<>();
+        List<Rejection> rejected = new ArrayList<>();
+        for (Pending pending : postings) {
+            Long portfolioId = pending.dto().getPortfolioId();
+            Long investmentId = pending.dto().getInvestmentId();
+            if (!pending.userId().equals(owners.get(portfolioId))) {
+                rejected.add(new Rejection(pending, new RuntimeException("Portfolio not found")));
+            } else if (investmentId != null && !portfolioId.equals(investmentPortfolios.get(investmentId))) {
+                rejected.add(new Rejection(pending, new RuntimeException("Investment not found in portfolio")));
+            } else {
+                accepted.add(pending);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return new Outcome(accepted, List.of(), rejected);
+        }
+        
+        SqlParameterSource[] rows = new SqlParameterSource[accepted.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Pending pending = accepted.get(i);
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("type", pending.dto().getTransactionType())
+                    .addValue("amount", pending.dto().getAmount())
+                    .addValue("notes", pending.dto().getNotes())
+                    .addValue("date", pending.date())
+                    .addValue("portfolioId", pending.dto().getPortfolioId())
+                    .addValue("investmentId", pending.dto().getInvestmentId());
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, keys, new String[] {"id"});
+        
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<TransactionDTO> saved = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Pending pending = accepted.get(i);
+            TransactionDTO dto = new TransactionDTO();
+            dto.setId(((Number) keyList.get(i).get("id")).longValue());
+            dto.setTransactionType(pending.dto().getTransactionType());
+            dto.setAmount(pending.dto().getAmount());
+            dto.setNotes(pending.dto().getNotes());
+            dto.setDate(pending.date());
+            dto.setPortfolioId(pending.dto().getPortfolioId());
+            dto.setInvestmentId(pending.dto().getInvestmentId());
+            saved.add(dto);
+        }
+        return new Outcome(accepted, saved, rejected);
+    }
+    
+    private void fail(List<Pending> postings, RuntimeException error) {
+        for (Pending pending : postings) {
+            if (pending.future().completeExceptionally(error)) {
+                groupCommitMetrics.failures.increment();
+            }
+        }
+    }
+    
+    private TransactionDTO convertToDTO(Transaction transaction) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setId(transaction.getId());
+        dto.setTransactionType(transaction.getTransactionType());
+        dto.setAmount(transaction.getAmount());
+        dto.setNotes(transaction.getNotes());
+        dto.setDate(transaction.getDate());
+        dto.setPortfolioId(transaction.getPortfolio().getId());
+        dto.setInvestmentId(transaction.getInvestment() != null ? transaction.getInvestment().getId() : null);
+        return dto;
+    }
+    
+    private record Pending(Long userId, TransactionCreateDTO dto, LocalDateTime date, long enqueuedNanos,
+                           CompletableFuture<TransactionDTO> future) {
+    }
+    
+    private record Rejection(Pending pending, RuntimeException error) {
+    }
+    
+    private record Outcome(List<Pending> accepted, List<TransactionDTO> saved, List<Rejection> rejected) {
+    }
+    
+    private static class PathMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final LongAdder commits = new LongAdder();
+        final LongAdder committedItems = new LongAdder();
+        volatile long startedNanos = System.nanoTime();
+        
+        void committed(int items, long latencyNanos) {
+            latency.recordNanos(latencyNanos);
+            commits.increment();
+            committedItems.add(items);
+        }
+        
+        void reset() {
+            latency.reset();
+            failures.reset();
+            commits.reset();
+            committedItems.reset();
+            startedNanos = System.nanoTime();
+        }
+        
+        PostingMetricsDTO toDTO(String mode) {
+            long postings = latency.count();
+            long commitCount = commits.sum();
+            double seconds = (System.nanoTime() - startedNanos) / 1e9;
+            return new PostingMetricsDTO(mode, postings, failures.sum(),
+                    seconds > 0 ? postings / seconds : 0.0,
+                    latency.percentileMicros(0.50),
+                    latency.percentileMicros(0.99),
+                    latency.percentileMicros(0.999),
+                    latency.maxMicros(),
+                    commitCount,
+                    commitCount > 0 ? (double) committedItems.sum() / commitCount : 0.0);
+        }
+    }
+}
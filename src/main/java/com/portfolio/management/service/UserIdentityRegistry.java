@@ -0,0 +1,177 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.exception.UserAlreadyExistsException;
+import com.portfolio.management.repository.UserRepository;
+import com.portfolio.management.sharding.ShardDirectory;
+import com.portfolio.management.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cluster-wide username and e-mail uniqueness, kept in the {@code user_identities} table on the
+ * directory shard. The per-shard unique constraints cannot see users on other shards, so signups
+ * and profile changes claim their values here first. Claims follow the caller's transaction: they
+ * are undone if it rolls back. A process that dies between the claim and the commit leaves an
+ * unbound claim behind, which blocks the value until it is deleted by hand.
+ * <p>
+ * With sharding disabled every method is a no-op and the {@code users} constraints suffice.
+ */
+@Service
+public class UserIdentityRegistry {
+    
+    private static final int BACKFILL_BATCH = 1_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    @Autowired
+    public UserIdentityRegistry(ObjectProvider<ShardDirectory> directory,
+                                UserRepository userRepository,
+                                ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager) {
+        ShardDirectory shardDirectory = directory.getIfAvailable();
+        this.jdbcTemplate = shardDirectory != null ? new JdbcTemplate(shardDirectory.directoryDataSource()) : null;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Claims a username and optional e-mail for a user that is about to be inserted and returns
+     * the claim id to {@link #bind} once the user id is known.
+     */
+    public Long claim(String username, String email) {
+        if (jdbcTemplate == null) {
+            return null;
+        }
+        List<Long> ids = jdbcTemplate.queryForList("insert into user_identities (username, email) values (?, ?) " +
+                "on conflict do nothing returning id", Long.class, username, email);
+        if (ids.isEmpty()) {
+            throw new UserAlreadyExistsException(takenField(username, null));
+        }
+        Long claimId = ids.get(0);
+        onRollback(() -> jdbcTemplate.update("delete from user_identities where id = ?", claimId));
+        return claimId;
+    }
+    
+    public void bind(Long claimId, Long userId) {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("update user_identities set user_id = ? where id = ?", userId, claimId);
+        }
+    }
+    
+    /**
+     * Moves the user's claim to new values, restoring the previous ones if the transaction rolls back.
+     */
+    public void change(Long userId, String oldUsername, String oldEmail, String username, String email) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("update user_identities set username = ?, email = ? where user_id = ?",
+                    username, email, userId);
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException(takenField(username, userId), e);
+        }
+        onRollback(() -> jdbcTemplate.update("update user_identities set username = ?, email = ? where user_id = ?",
+                oldUsername, oldEmail, userId));
+    }
+    
+    // Released only once the delete commits, so a failed delete keeps the user's values reserved
+    public void remove(Long userId) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        Runnable delete = () -> jdbcTemplate.update("delete from user_identities where user_id = ?", userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+    
+    /**
+     * Records the users of every shard, for deployments whose users predate the table. Safe to
+     * repeat; returns the number of identities added.
+     */
+    public int backfill() {
+        if (jdbcTemplate == null) {
+            return 0;
+        }
+        int added = 0;
+        for (Integer shardId : shardRouter.shardIds()) {
+            added += shardRouter.callOnShard(shardId, () -> readOnlyTransaction.execute(status -> {
+                List<Object[]> batch = new ArrayList<>(BACKFILL_BATCH);
+                int shardAdded = 0;
+                try (Stream<UserRepository.SearchRow> rows = userRepository.streamSearchRows()) {
+                    for (UserRepository.SearchRow row : (Iterable<UserRepository.SearchRow>) rows::iterator) {
+                        batch.add(new Object[]{row.getId(), row.getUsername(), row.getEmail()});
+                        if (batch.size() == BACKFILL_BATCH) {
+                            shardAdded += insertIdentities(batch);
+                            batch.clear();
+                        }
+                    }
+                }
+                return shardAdded + insertIdentities(batch);
+            }));
+        }
+        return added;
+    }
+    
+    private int insertIdentities(List<Object[]> users) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        int added = 0;
+        for (int count : jdbcTemplate.batchUpdate("insert into user_identities (user_id, username, email) " +
+                "values (?, ?, ?) on conflict do nothing", users)) {
+            added += Math.max(count, 0);
+        }
+        return added;
+    }
+    
+    // Pending claims have no user id yet, so only an update excludes the user's own row
+    private UserAlreadyExistsException.Field takenField(String username, Long exceptUserId) {
+        Boolean usernameTaken = exceptUserId == null
+                ? jdbcTemplate.queryForObject("select exists (select 1 from user_identities where username = ?)",
+                        Boolean.class, username)
+                : jdbcTemplate.queryForObject("select exists (select 1 from user_identities " +
+                        "where username = ? and user_id is distinct from ?)", Boolean.class, username, exceptUserId);
+        return Boolean.TRUE.equals(usernameTaken)
+                ? UserAlreadyExistsException.Field.USERNAME
+                : UserAlreadyExistsException.Field.EMAIL;
+    }
+    
+    private void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    undo.run();
+                }
+            }
+        });
+    }
+}
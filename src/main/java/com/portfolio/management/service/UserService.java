@@ -3,53 +3,85 @@ package com.portfolio.management.service;
 import com.portfolio.management.dto.UserCreateDTO;
 import com.portfolio.management.dto.UserDTO;
 import com.portfolio.management.entity.User;
+import com.portfolio.management.exception.UserAlreadyExistsException;
 import com.portfolio.management.repository.UserRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     
+    private static final Map<String, UserAlreadyExistsException.Field> UNIQUE_CONSTRAINTS = Map.of(
+            User.USERNAME_KEY, UserAlreadyExistsException.Field.USERNAME,
+            User.EMAIL_KEY, UserAlreadyExistsException.Field.EMAIL);
+    
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ShardRouter shardRouter;
+    private final UserUniquenessIndex uniquenessIndex;
+    private final UserIdentityRegistry identityRegistry;
     
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ShardRouter shardRouter,
+                       UserUniquenessIndex uniquenessIndex, UserIdentityRegistry identityRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.shardRouter = shardRouter;
+        this.uniquenessIndex = uniquenessIndex;
+        this.identityRegistry = identityRegistry;
     }
     
+    // Admin-only: gathers users from every shard
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+        return shardRouter.scatterGather(shardId -> userRepository.findAll().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     public UserDTO getUserById(Long id) {
-        return userRepository.findById(id)
+        return shardRouter.callForUser(id, () -> userRepository.findById(id)
                 .map(this::convertToDTO)
-                .orElse(null);
+                .orElse(null));
     }
     
+    // Users can be moved off their initial shard, so look on every shard
     public UserDTO getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .map(this::convertToDTO)
+        return shardRouter.scatterGather(shardId -> userRepository.findByUsername(username)
+                        .map(this::convertToDTO)
+                        .stream()
+                        .collect(Collectors.toList()))
+                .stream()
+                .findFirst()
                 .orElse(null);
     }
     
     @Transactional
     public UserDTO createUser(UserCreateDTO userCreateDTO) {
-        if (userRepository.existsByUsername(userCreateDTO.getUsername())) {
-            throw new RuntimeException("Username already taken");
-        }
-        
-        if (userCreateDTO.getEmail() != null && userRepository.existsByEmail(userCreateDTO.getEmail())) {
-            throw new RuntimeException("Email already in use");
+        int shardId = shardRouter.shardForNewUser(userCreateDTO.getUsername());
+        // The shard constraints only see this shard; the registry covers the others
+        Long claimId = identityRegistry.claim(userCreateDTO.getUsername(), userCreateDTO.getEmail());
+        UserDTO created = shardRouter.callOnShard(shardId, () -> insertUser(userCreateDTO));
+        identityRegistry.bind(claimId, created.getId());
+        shardRouter.registerUser(created.getId(), shardId);
+        return created;
+    }
+    
+    private UserDTO insertUser(UserCreateDTO userCreateDTO) {
+        uniquenessIndex.reserve(userCreateDTO.getUsername(), userCreateDTO.getEmail());
+        checkUsernameFree(userCreateDTO.getUsername());
+        if (userCreateDTO.getEmail() != null) {
+            checkEmailFree(userCreateDTO.getEmail());
         }
         
         User user = new User();
@@ -58,26 +90,35 @@ public class UserService {
         user.setName(userCreateDTO.getName());
         user.setEmail(userCreateDTO.getEmail());
         
-        User savedUser = userRepository.save(user);
+        User savedUser = saveUnique(user);
         return convertToDTO(savedUser);
     }
     
     @Transactional
     public UserDTO updateUser(Long id, UserCreateDTO userCreateDTO) {
+        return shardRouter.callForUser(id, () -> applyUpdate(id, userCreateDTO));
+    }
+    
+    private UserDTO applyUpdate(Long id, UserCreateDTO userCreateDTO) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Check if username is being changed and if it's already taken
-        if (!existingUser.getUsername().equals(userCreateDTO.getUsername()) &&
-                userRepository.existsByUsername(userCreateDTO.getUsername())) {
-            throw new RuntimeException("Username already taken");
+        // Only values that are being changed need a uniqueness check
+        String newUsername = existingUser.getUsername().equals(userCreateDTO.getUsername())
+                ? null : userCreateDTO.getUsername();
+        String newEmail = userCreateDTO.getEmail() == null || userCreateDTO.getEmail().equals(existingUser.getEmail())
+                ? null : userCreateDTO.getEmail();
+        uniquenessIndex.reserve(newUsername, newEmail);
+        if (newUsername != null) {
+            checkUsernameFree(newUsername);
         }
-        
-        // Check if email is being changed and if it's already in use
-        if (userCreateDTO.getEmail() != null && 
-                !userCreateDTO.getEmail().equals(existingUser.getEmail()) &&
-                userRepository.existsByEmail(userCreateDTO.getEmail())) {
-            throw new RuntimeException("Email already in use");
+        if (newEmail != null) {
+            checkEmailFree(newEmail);
+        }
+        if (!Objects.equals(existingUser.getUsername(), userCreateDTO.getUsername())
+                || !Objects.equals(existingUser.getEmail(), userCreateDTO.getEmail())) {
+            identityRegistry.change(id, existingUser.getUsername(), existingUser.getEmail(),
+                    userCreateDTO.getUsername(), userCreateDTO.getEmail());
         }
         
         existingUser.setUsername(userCreateDTO.getUsername());
@@ -87,13 +128,56 @@ public class UserService {
         existingUser.setName(userCreateDTO.getName());
         existingUser.setEmail(userCreateDTO.getEmail());
         
-        User updatedUser = userRepository.save(existingUser);
+        User updatedUser = saveUnique(existingUser);
         return convertToDTO(updatedUser);
     }
     
     @Transactional
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        shardRouter.runForUser(id, () -> userRepository.deleteById(id));
+        shardRouter.unregisterUser(id);
+        identityRegistry.remove(id);
+    }
+    
+    private void checkUsernameFree(String username) {
+        if (!uniquenessIndex.isUsernameDefinitelyFree(username)
+                && existsOnAnyShard(shardId -> userRepository.existsByUsername(username))) {
+            throw new UserAlreadyExistsException(UserAlreadyExistsException.Field.USERNAME);
+        }
+    }
+    
+    private void checkEmailFree(String email) {
+        if (!uniquenessIndex.isEmailDefinitelyFree(email)
+                && existsOnAnyShard(shardId -> userRepository.existsByEmail(email))) {
+            throw new UserAlreadyExistsException(UserAlreadyExistsException.Field.EMAIL);
+        }
+    }
+    
+    private boolean existsOnAnyShard(Function<Integer, Boolean> exists) {
+        return !shardRouter.scatterGather(shardId -> exists.apply(shardId) ? List.of(true) : List.<Boolean>of())
+                .isEmpty();
+    }
+    
+    // The unique constraints catch writers that raced past the in-memory checks
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            UserAlreadyExistsException.Field field = UNIQUE_CONSTRAINTS.get(violatedConstraint(e));
+            if (field == null) {
+                throw e;
+            }
+            throw new UserAlreadyExistsException(field, e);
+        }
+    }
+    
+    private static String violatedConstraint(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
     }
     
     private UserDTO convertToDTO(User user) {
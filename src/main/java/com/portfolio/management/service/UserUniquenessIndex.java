@@ -0,0 +1,130 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.exception.UserAlreadyExistsException;
+import com.portfolio.management.repository.UserRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of taken usernames and e-mails used to skip database lookups on signup.
+ * <p>
+ * Bloom filters hold every committed value, so a negative answer means "definitely free" and
+ * no query is needed; a positive answer falls back to the database. Values being written by an
+ * open transaction are reserved in a concurrent set so two signups for the same name in this
+ * instance cannot both proceed. The database unique constraints, and across shards the
+ * {@link UserIdentityRegistry}, remain the final arbiter for writes from other instances.
+ */
+@Service
+public class UserUniquenessIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(UserUniquenessIndex.class);
+    
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+    private final Set<String> pendingUsernames = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingEmails = ConcurrentHashMap.newKeySet();
+    private final boolean enabled;
+    private volatile boolean warm;
+    
+    @Autowired
+    public UserUniquenessIndex(UserRepository userRepository,
+                               ShardRouter shardRouter,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${portfolio.users.expected-count:10000000}") long expectedUsers,
+                               @Value("${portfolio.users.uniqueness-false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${portfolio.users.uniqueness-index.enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.enabled = enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            // never warm, so every check goes to the database
+            return;
+        }
+        long start = System.nanoTime();
+        for (Integer shardId : shardRouter.shardIds()) {
+            shardRouter.callOnShard(shardId, () -> readOnlyTransaction.execute(status -> {
+                try (Stream<UserRepository.SearchRow> rows = userRepository.streamSearchRows()) {
+                    rows.forEach(row -> record(row.getUsername(), row.getEmail()));
+                }
+                return null;
+            }));
+        }
+        warm = true;
+        log.info("User uniqueness index warmed in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    public boolean isUsernameDefinitelyFree(String username) {
+        return warm && !usernames.mightContain(username);
+    }
+    
+    public boolean isEmailDefinitelyFree(String email) {
+        return warm && !emails.mightContain(email);
+    }
+    
+    /**
+     * Reserves the given values (either may be null) until the current transaction completes and
+     * records them as taken if it commits. Must be called inside a transaction.
+     */
+    public void reserve(String username, String email) {
+        if (username != null && !pendingUsernames.add(username)) {
+            throw new UserAlreadyExistsException(UserAlreadyExistsException.Field.USERNAME);
+        }
+        if (email != null && !pendingEmails.add(email)) {
+            if (username != null) {
+                pendingUsernames.remove(username);
+            }
+            throw new UserAlreadyExistsException(UserAlreadyExistsException.Field.EMAIL);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(username, email);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (username != null) {
+                    pendingUsernames.remove(username);
+                }
+                if (email != null) {
+                    pendingEmails.remove(email);
+                }
+            }
+        });
+    }
+    
+    private void record(String username, String email) {
+        if (username != null) {
+            usernames.put(username);
+        }
+        if (email != null) {
+            emails.put(email);
+        }
+    }
+}
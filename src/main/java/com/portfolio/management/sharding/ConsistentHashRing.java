@@ -0,0 +1,51 @@
+package com.portfolio.management.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over shard ids with virtual nodes, so adding a shard only
+ * relocates roughly {@code 1/n} of the keys that have no explicit directory entry.
+ */
+public class ConsistentHashRing {
+    
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    
+    public ConsistentHashRing(Collection<Integer> shardIds, int virtualNodes) {
+        if (shardIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        for (Integer shardId : shardIds) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                ring.put(mix(((long) shardId << 32) | replica), shardId);
+            }
+        }
+    }
+    
+    public int shardFor(long key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(mix(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+    
+    public int shardFor(String key) {
+        return shardFor(fnv1a(key));
+    }
+    
+    private static long fnv1a(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,34 @@
+package com.portfolio.management.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread is routed to. The key must be bound before the
+ * first statement of a transaction; {@link ShardRoutingDataSource} reads it when the
+ * lazy connection proxy acquires the physical connection.
+ */
+public final class ShardContext {
+    
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    
+    private ShardContext() {
+    }
+    
+    public static Integer current() {
+        return CURRENT.get();
+    }
+    
+    public static <T> T callOn(int shardId, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shardId);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
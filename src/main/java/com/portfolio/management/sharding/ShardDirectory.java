@@ -0,0 +1,125 @@
+package com.portfolio.management.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps users to shards. Explicit assignments live in the {@code user_shards} table on the
+ * first shard, created by {@code db/directory-schema.sql}; users without an entry fall back to
+ * the consistent-hash ring. Lookups are cached for {@code portfolio.sharding.directory-cache-ttl},
+ * except for users marked {@code MOVING}, which are read from the table on every lookup until the
+ * move settles.
+ */
+@Component
+@ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+public class ShardDirectory {
+    
+    private static final String ACTIVE = "ACTIVE";
+    private static final String MOVING = "MOVING";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsistentHashRing ring;
+    private final List<Integer> shardIds;
+    private final Map<Integer, DataSource> shardDataSources;
+    private final long cacheTtlNanos;
+    private final Map<Long, CachedShard> cache = new ConcurrentHashMap<>();
+    
+    @SuppressWarnings("unchecked")
+    @Autowired
+    public ShardDirectory(ShardRoutingDataSource routingDataSource, ShardingProperties properties) {
+        this.shardDataSources = (Map<Integer, DataSource>) (Map<?, ?>) routingDataSource.getResolvedDataSources();
+        this.shardIds = properties.getShards().stream().map(ShardingProperties.Shard::getId).toList();
+        this.ring = new ConsistentHashRing(shardIds, properties.getVirtualNodes());
+        this.cacheTtlNanos = properties.getDirectoryCacheTtl().toNanos();
+        this.jdbcTemplate = new JdbcTemplate(directoryDataSource());
+    }
+    
+    public List<Integer> shardIds() {
+        return shardIds;
+    }
+    
+    // The first shard also holds the directory tables
+    public DataSource directoryDataSource() {
+        return dataSource(shardIds.get(0));
+    }
+    
+    public DataSource dataSource(int shardId) {
+        DataSource dataSource = shardDataSources.get(shardId);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shardId);
+        }
+        return dataSource;
+    }
+    
+    public Duration cacheTtl() {
+        return Duration.ofNanos(cacheTtlNanos);
+    }
+    
+    public int shardForUser(Long userId) {
+        CachedShard cached = cache.get(userId);
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt() < cacheTtlNanos) {
+            return cached.shardId();
+        }
+        List<Map<String, Object>> assigned = jdbcTemplate.queryForList(
+                "select shard_id, status from user_shards where user_id = ?", userId);
+        if (assigned.isEmpty()) {
+            int shardId = ring.shardFor(userId);
+            cache.put(userId, new CachedShard(shardId, now));
+            return shardId;
+        }
+        int shardId = ((Number) assigned.get(0).get("shard_id")).intValue();
+        if (ACTIVE.equals(assigned.get(0).get("status"))) {
+            cache.put(userId, new CachedShard(shardId, now));
+        } else {
+            cache.remove(userId);
+        }
+        return shardId;
+    }
+    
+    public int shardForNewUser(String username) {
+        return ring.shardFor(username);
+    }
+    
+    public void assign(Long userId, int shardId) {
+        dataSource(shardId);
+        jdbcTemplate.update("insert into user_shards (user_id, shard_id, status) values (?, ?, ?) " +
+                "on conflict (user_id) do update set shard_id = excluded.shard_id, status = excluded.status",
+                userId, shardId, ACTIVE);
+        cache.put(userId, new CachedShard(shardId, System.nanoTime()));
+    }
+    
+    public boolean isMoving(Long userId) {
+        return jdbcTemplate.queryForList("select status from user_shards where user_id = ?", String.class, userId)
+                .contains(MOVING);
+    }
+    
+    /**
+     * Pins the user to {@code shardId} and stops every instance from caching the entry once
+     * their current cache entries expire. Returns {@code false} if a move is already under way.
+     */
+    public boolean markMoving(Long userId, int shardId) {
+        dataSource(shardId);
+        int updated = jdbcTemplate.update("insert into user_shards (user_id, shard_id, status) values (?, ?, ?) " +
+                "on conflict (user_id) do update set shard_id = excluded.shard_id, status = excluded.status " +
+                "where user_shards.status = ?", userId, shardId, MOVING, ACTIVE);
+        cache.remove(userId);
+        return updated > 0;
+    }
+    
+    public void remove(Long userId) {
+        jdbcTemplate.update("delete from user_shards where user_id = ?", userId);
+        cache.remove(userId);
+    }
+    
+    private record CachedShard(int shardId, long loadedAt) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.portfolio.management.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Refuses to start unless shard k of n steps every id sequence by n from k + 1. Moved rows keep
+ * their ids, and the search index, risk cache, report cache and identity registry all key on
+ * them, so two shards handing out the same id would silently mix users' data.
+ * {@code db/shard-schema.sql} sets the sequences up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+public class ShardIdVerifier {
+    
+    private final ShardDirectory directory;
+    
+    @Autowired
+    public ShardIdVerifier(ShardDirectory directory) {
+        this.directory = directory;
+    }
+    
+    // Runs before the other ready listeners, which already read from the shards
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        List<Integer> shardIds = directory.shardIds();
+        int count = shardIds.size();
+        List<String> problems = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            int shardId = shardIds.get(index);
+            JdbcTemplate jdbc = new JdbcTemplate(directory.dataSource(shardId));
+            for (String table : ShardMigrationService.ownedTables()) {
+                String sequence = jdbc.queryForObject("select pg_get_serial_sequence(?, 'id')", String.class, table);
+                if (sequence == null) {
+                    problems.add("shard " + shardId + ": " + table + ".id has no sequence");
+                    continue;
+                }
+                Map<String, Object> state = jdbc.queryForMap("select (select seqincrement from pg_sequence " +
+                        "where seqrelid = cast(? as regclass)) as increment, last_value from " + sequence, sequence);
+                long increment = ((Number) state.get("increment")).longValue();
+                long lastValue = ((Number) state.get("last_value")).longValue();
+                if (increment != count || Math.floorMod(lastValue, count) != (index + 1) % count) {
+                    problems.add("shard " + shardId + ": " + sequence + " steps by " + increment + " at " + lastValue
+                            + ", expected steps of " + count + " from " + (index + 1));
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Shard id sequences overlap; run scripts/apply-schema.sh --sharded: "
+                    + problems);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.portfolio.management.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Moves a user and everything they own to another shard while the application keeps serving.
+ * The user is first marked {@code MOVING} in the directory and the move waits one directory cache
+ * TTL, so no instance still holds a cached route when the directory flips. The user's rows are then
+ * locked {@code FOR UPDATE} on the source for the copy, which also blocks child inserts through
+ * their foreign-key checks. The source rows are deleted and the directory flipped before the source
+ * transaction commits; if either step fails, the target copy is deleted and the user stays on the
+ * source. Writers blocked on the locks are not retried: they fail once the source rows are gone.
+ * <p>
+ * Each move holds a per-user advisory lock on the directory shard, which Postgres releases if the
+ * moving process dies. A user left {@code MOVING} without that lock belongs to a dead move: the
+ * source rows are still authoritative, so {@link #resolveMove} (and the next move of that user)
+ * deletes any copies on other shards and marks the user active on the source again.
+ */
+@Service
+@ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+public class ShardMigrationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrationService.class);
+    
+    // Two-int advisory keys live apart from the single-bigint keys the rebalancing batch uses
+    private static final int MOVE_LOCK_CLASS = "portfolio.sharding.move".hashCode();
+    
+    private static final String USER_PORTFOLIOS = "portfolio_id in (select id from portfolios where user_id = ?)";
+    
+    /**
+     * Every table that holds per-user data, parent-first. Rows are copied in this order and
+     * deleted in reverse, so a new entity table must be registered here before users can move.
+     */
+    private static final List<OwnedTable> OWNED_TABLES = List.of(
+            new OwnedTable("users", "id = ?"),
+            new OwnedTable("portfolios", "user_id = ?"),
+            new OwnedTable("investments", USER_PORTFOLIOS),
+            new OwnedTable("target_allocations", USER_PORTFOLIOS),
+            new OwnedTable("transactions", USER_PORTFOLIOS),
+            new OwnedTable("performance", USER_PORTFOLIOS));
+    
+    private final ShardDirectory directory;
+    
+    @Autowired
+    public ShardMigrationService(ShardDirectory directory, EntityManagerFactory entityManagerFactory) {
+        this.directory = directory;
+        Set<String> unregistered = new TreeSet<>();
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            Table table = entity.getJavaType().getAnnotation(Table.class);
+            String name = table != null ? table.name() : entity.getName();
+            if (OWNED_TABLES.stream().noneMatch(owned -> owned.name().equals(name))) {
+                unregistered.add(name);
+            }
+        }
+        if (!unregistered.isEmpty()) {
+            throw new IllegalStateException("Tables not registered for shard migration: " + unregistered);
+        }
+    }
+    
+    static List<String> ownedTables() {
+        return OWNED_TABLES.stream().map(OwnedTable::name).toList();
+    }
+    
+    public Map<String, Integer> moveUser(Long userId, int targetShard) {
+        return underMoveLock(userId, () -> {
+            if (directory.isMoving(userId)) {
+                rollBackMove(userId);
+            }
+            return copyAndFlip(userId, targetShard);
+        });
+    }
+    
+    /**
+     * Ends a move whose process died while the user was {@code MOVING}, keeping the user on the
+     * source shard. Returns the leftover rows removed from other shards, per table.
+     */
+    public Map<String, Integer> resolveMove(Long userId) {
+        return underMoveLock(userId, () -> {
+            if (!directory.isMoving(userId)) {
+                throw new RuntimeException("User " + userId + " is not being moved");
+            }
+            return rollBackMove(userId);
+        });
+    }
+    
+    private Map<String, Integer> copyAndFlip(Long userId, int targetShard) {
+        int sourceShard = directory.shardForUser(userId);
+        if (sourceShard == targetShard) {
+            return Map.of();
+        }
+        DataSource source = directory.dataSource(sourceShard);
+        DataSource target = directory.dataSource(targetShard);
+        JdbcTemplate sourceJdbc = new JdbcTemplate(source);
+        JdbcTemplate targetJdbc = new JdbcTemplate(target);
+        TransactionTemplate sourceTransaction = new TransactionTemplate(new DataSourceTransactionManager(source));
+        TransactionTemplate targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(target));
+        
+        if (!directory.markMoving(userId, sourceShard)) {
+            throw new RuntimeException("User " + userId + " is already being moved");
+        }
+        AtomicBoolean flipped = new AtomicBoolean();
+        Map<String, List<Map<String, Object>>> snapshot;
+        try {
+            awaitCacheExpiry();
+            snapshot = sourceTransaction.execute(sourceStatus -> {
+                Map<String, List<Map<String, Object>>> rows = lockAndRead(sourceJdbc, userId);
+                if (rows.get("users").isEmpty()) {
+                    throw new RuntimeException("User not found on shard " + sourceShard);
+                }
+                targetTransaction.executeWithoutResult(
+                        targetStatus -> rows.forEach((table, tableRows) -> insertAll(targetJdbc, table, tableRows)));
+                try {
+                    deleteAll(sourceJdbc, rows);
+                    directory.assign(userId, targetShard);
+                    flipped.set(true);
+                } catch (RuntimeException e) {
+                    targetTransaction.executeWithoutResult(targetStatus -> deleteAll(targetJdbc, rows));
+                    throw e;
+                }
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            if (!flipped.get()) {
+                directory.assign(userId, sourceShard);
+                throw e;
+            }
+            // Only the source commit failed; the target copy is already authoritative
+            log.warn("Source commit failed after moving user {} to shard {}, removing leftovers on shard {}",
+                    userId, targetShard, sourceShard, e);
+            snapshot = sourceTransaction.execute(sourceStatus -> {
+                Map<String, List<Map<String, Object>>> leftovers = lockAndRead(sourceJdbc, userId);
+                deleteAll(sourceJdbc, leftovers);
+                return leftovers;
+            });
+        }
+        
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        snapshot.forEach((table, rows) -> moved.put(table, rows.size()));
+        log.info("Moved user {} from shard {} to shard {}: {}", userId, sourceShard, targetShard, moved);
+        return moved;
+    }
+    
+    // Until the directory flips, the source rows are authoritative and any copy elsewhere is a leftover
+    private Map<String, Integer> rollBackMove(Long userId) {
+        int sourceShard = directory.shardForUser(userId);
+        Map<String, Integer> removed = new LinkedHashMap<>();
+        for (Integer shardId : directory.shardIds()) {
+            if (shardId == sourceShard) {
+                continue;
+            }
+            DataSource dataSource = directory.dataSource(shardId);
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            Map<String, List<Map<String, Object>>> leftovers = new TransactionTemplate(
+                    new DataSourceTransactionManager(dataSource)).execute(status -> {
+                        Map<String, List<Map<String, Object>>> rows = lockAndRead(jdbc, userId);
+                        deleteAll(jdbc, rows);
+                        return rows;
+                    });
+            leftovers.forEach((table, rows) -> removed.merge(table, rows.size(), Integer::sum));
+        }
+        directory.assign(userId, sourceShard);
+        log.warn("Rolled back interrupted move of user {}: kept on shard {}, removed leftovers {}",
+                userId, sourceShard, removed);
+        return removed;
+    }
+    
+    private <T> T underMoveLock(Long userId, Supplier<T> action) {
+        int key = Long.hashCode(userId);
+        return new JdbcTemplate(directory.directoryDataSource()).execute((ConnectionCallback<T>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock", key)) {
+                throw new RuntimeException("User " + userId + " is already being moved");
+            }
+            try {
+                return action.get();
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock", key);
+            }
+        });
+    }
+    
+    private static boolean advisoryLock(Connection connection, String function, int key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select " + function + "(?, ?)")) {
+            statement.setInt(1, MOVE_LOCK_CLASS);
+            statement.setInt(2, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getBoolean(1);
+            }
+        }
+    }
+    
+    // Instances only cache ACTIVE entries, so after one TTL every lookup for this user reads the table
+    private void awaitCacheExpiry() {
+        try {
+            Thread.sleep(directory.cacheTtl().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for directory caches to expire", e);
+        }
+    }
+    
+    /**
+     * Reads the user's rows parent-first so they can be inserted in the same order.
+     */
+    private Map<String, List<Map<String, Object>>> lockAndRead(JdbcTemplate jdbc, Long userId) {
+        Map<String, List<Map<String, Object>>> snapshot = new LinkedHashMap<>();
+        for (OwnedTable table : OWNED_TABLES) {
+            snapshot.put(table.name(), jdbc.queryForList(
+                    "select * from " + table.name() + " where " + table.ownerFilter() + " order by id for update",
+                    userId));
+        }
+        return snapshot;
+    }
+    
+    private void insertAll(JdbcTemplate jdbc, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values (" +
+                columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        List<Object[]> arguments = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            arguments.add(columns.stream().map(row::get).toArray());
+        }
+        jdbc.batchUpdate(sql, arguments);
+    }
+    
+    private void deleteAll(JdbcTemplate jdbc, Map<String, List<Map<String, Object>>> snapshot) {
+        List<String> tables = new ArrayList<>(snapshot.keySet());
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            String table = tables.get(i);
+            List<Object[]> ids = snapshot.get(table).stream()
+                    .map(row -> new Object[]{row.get("id")})
+                    .toList();
+            if (!ids.isEmpty()) {
+                jdbc.batchUpdate("delete from " + table + " where id = ?", ids);
+            }
+        }
+    }
+    
+    private record OwnedTable(String name, String ownerFilter) {
+    }
+}
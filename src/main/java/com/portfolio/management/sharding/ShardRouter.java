@@ -0,0 +1,110 @@
+package com.portfolio.management.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Entry point for shard-aware code. Everything a user owns (portfolios, investments,
+ * transactions, performance) lives on that user's shard, so services bind the user's
+ * shard before touching the database. With sharding disabled every call runs in place
+ * against the single database, reported as shard {@code 0}.
+ */
+@Component
+public class ShardRouter {
+    
+    private static final List<Integer> SINGLE_SHARD = List.of(0);
+    
+    private final ShardDirectory directory;
+    private final ExecutorService scatterExecutor;
+    
+    @Autowired
+    public ShardRouter(ObjectProvider<ShardDirectory> directory, ShardingProperties properties) {
+        this.directory = directory.getIfAvailable();
+        this.scatterExecutor = this.directory != null
+                ? Executors.newFixedThreadPool(properties.getScatterThreads())
+                : null;
+    }
+    
+    public boolean isSharded() {
+        return directory != null;
+    }
+    
+    public List<Integer> shardIds() {
+        return directory != null ? directory.shardIds() : SINGLE_SHARD;
+    }
+    
+    public int shardForUser(Long userId) {
+        return directory != null ? directory.shardForUser(userId) : 0;
+    }
+    
+    public int shardForNewUser(String username) {
+        return directory != null ? directory.shardForNewUser(username) : 0;
+    }
+    
+    public void registerUser(Long userId, int shardId) {
+        if (directory != null) {
+            directory.assign(userId, shardId);
+        }
+    }
+    
+    public void unregisterUser(Long userId) {
+        if (directory != null) {
+            directory.remove(userId);
+        }
+    }
+    
+    public <T> T callForUser(Long userId, Supplier<T> action) {
+        return callOnShard(shardForUser(userId), action);
+    }
+    
+    public void runForUser(Long userId, Runnable action) {
+        callForUser(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    public <T> T callOnShard(int shardId, Supplier<T> action) {
+        if (directory == null) {
+            return action.get();
+        }
+        return ShardContext.callOn(shardId, action);
+    }
+    
+    /**
+     * Runs {@code query} on every shard in parallel and concatenates the results in shard order.
+     * Intended for admin-only, cross-user queries.
+     */
+    public <T> List<T> scatterGather(Function<Integer, List<T>> query) {
+        if (directory == null) {
+            return query.apply(0);
+        }
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (Integer shardId : directory.shardIds()) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> ShardContext.callOn(shardId, () -> query.apply(shardId)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<List<T>> future : futures) {
+            results.addAll(future.join());
+        }
+        return results;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.portfolio.management.sharding;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes to the shard bound in {@link ShardContext}. Until the application is ready, unbound
+ * access goes to the bootstrap shard so Hibernate can inspect the schema; after that, a statement
+ * without a bound shard fails instead of silently reading one shard's data.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource
+        implements ApplicationListener<ApplicationReadyEvent> {
+    
+    private final Integer bootstrapShard;
+    private volatile boolean started;
+    
+    public ShardRoutingDataSource(Integer bootstrapShard) {
+        this.bootstrapShard = bootstrapShard;
+    }
+    
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        started = true;
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shardId = ShardContext.current();
+        if (shardId != null) {
+            return shardId;
+        }
+        if (!started) {
+            return bootstrapShard;
+        }
+        throw new IllegalStateException("No shard bound for this database access; route it through ShardRouter");
+    }
+}
@@ -0,0 +1,58 @@
+package com.portfolio.management.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured {@link DataSource} with one routed by {@link ShardContext}
+ * when {@code portfolio.sharding.enabled=true}. The router is wrapped in a lazy proxy so the
+ * physical connection is only chosen at the first statement, after the service has bound the
+ * user's shard. There is no default shard: once the application is ready, unbound access fails.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+    public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties,
+                                                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("portfolio.sharding.enabled is set but no shards are configured");
+        }
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            // every shard gets the pool size a single database would
+            dataSource.setMaximumPoolSize(poolSize);
+            targets.put(shard.getId(), dataSource);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(properties.getShards().get(0).getId());
+        routing.setTargetDataSources(targets);
+        routing.setLenientFallback(false);
+        return routing;
+    }
+    
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "portfolio.sharding", name = "enabled", havingValue = "true")
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
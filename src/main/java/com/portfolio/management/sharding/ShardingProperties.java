@@ -0,0 +1,44 @@
+package com.portfolio.management.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "portfolio.sharding")
+public class ShardingProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Virtual nodes per shard on the consistent-hash ring.
+     */
+    private int virtualNodes = 128;
+    
+    /**
+     * Threads used for cross-shard scatter-gather queries.
+     */
+    private int scatterThreads = 4;
+    
+    /**
+     * How long a user-to-shard lookup is cached before the directory is consulted again. A shard
+     * move waits this long after marking the user before it copies anything.
+     */
+    private Duration directoryCacheTtl = Duration.ofSeconds(30);
+    
+    /**
+     * Shard nodes. The first shard also hosts the {@code user_shards} directory table.
+     */
+    private List<Shard> shards = new ArrayList<>();
+    
+    @Data
+    public static class Shard {
+        private int id;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
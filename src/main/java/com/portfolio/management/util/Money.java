@@ -0,0 +1,206 @@
+package com.portfolio.management.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-scale monetary amount stored as a {@code long} count of minor units.
+ * Arithmetic stays on primitives and only falls back to {@link BigDecimal} when a result
+ * would overflow, so every operation matches the equivalent {@code BigDecimal} expression
+ * rounded to {@link #SCALE} with {@link #ROUNDING}.
+ */
+public final class Money implements Comparable<Money> {
+    
+    public static final int SCALE = 2;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_EVEN;
+    public static final Money ZERO = new Money(0L, null);
+    
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    
+    private final long units;
+    private final BigDecimal overflow;
+    
+    private Money(long units, BigDecimal overflow) {
+        this.units = units;
+        this.overflow = overflow;
+    }
+    
+    public static Money ofUnits(long units) {
+        return units == 0L ? ZERO : new Money(units, null);
+    }
+    
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return fromScaled(amount.setScale(SCALE, ROUNDING));
+    }
+    
+    public static Money of(long major) {
+        return of(BigDecimal.valueOf(major));
+    }
+    
+    /**
+     * Converts an amount to minor units, throwing {@link ArithmeticException} if it does not fit.
+     * Hot loops use this together with {@link MoneySum} to avoid creating {@code Money} objects.
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+    
+    public boolean isCompact() {
+        return overflow == null;
+    }
+    
+    /**
+     * Minor units; only meaningful when {@link #isCompact()} is true.
+     */
+    public long units() {
+        if (overflow != null) {
+            throw new ArithmeticException("Amount exceeds long range: " + overflow);
+        }
+        return units;
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return overflow != null ? overflow : BigDecimal.valueOf(units, SCALE);
+    }
+    
+    public Money plus(Money other) {
+        if (overflow == null && other.overflow == null) {
+            long sum = units + other.units;
+            if (((units ^ sum) & (other.units ^ sum)) >= 0) {
+                return ofUnits(sum);
+            }
+        }
+        return fromScaled(toBigDecimal().add(other.toBigDecimal()));
+    }
+    
+    public Money minus(Money other) {
+        if (overflow == null && other.overflow == null) {
+            long difference = units - other.units;
+            if (((units ^ other.units) & (units ^ difference)) >= 0) {
+                return ofUnits(difference);
+            }
+        }
+        return fromScaled(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+    
+    public Money negate() {
+        if (overflow == null && units != Long.MIN_VALUE) {
+            return ofUnits(-units);
+        }
+        return fromScaled(toBigDecimal().negate());
+    }
+    
+    /**
+     * Equivalent to {@code toBigDecimal().multiply(factor).setScale(SCALE, ROUNDING)}.
+     */
+    public Money times(BigDecimal factor) {
+        if (overflow == null && factor.scale() >= 0 && factor.scale() < POWERS_OF_TEN.length
+                && factor.unscaledValue().bitLength() < Long.SIZE) {
+            try {
+                long product = Math.multiplyExact(units, factor.unscaledValue().longValue());
+                return ofUnits(divideHalfEven(product, POWERS_OF_TEN[factor.scale()]));
+            } catch (ArithmeticException e) {
+                // fall through to the exact path
+            }
+        }
+        return of(toBigDecimal().multiply(factor));
+    }
+    
+    /**
+     * This amount as a percentage of {@code total}; equivalent to
+     * {@code toBigDecimal().multiply(100).divide(total.toBigDecimal(), scale, ROUNDING)}.
+     */
+    public BigDecimal percentOf(Money total, int scale) {
+        if (overflow == null && total.overflow == null) {
+            try {
+                return BigDecimal.valueOf(percentUnits(units, total.units, scale), scale);
+            } catch (ArithmeticException e) {
+                // fall through to the exact path
+            }
+        }
+        return toBigDecimal().multiply(BigDecimal.valueOf(100)).divide(total.toBigDecimal(), scale, ROUNDING);
+    }
+    
+    /**
+     * Primitive form of {@link #percentOf}: {@code part / total * 100} as a count of
+     * {@code 10^-scale} percent. Throws {@link ArithmeticException} on overflow or a zero total.
+     */
+    public static long percentUnits(long part, long total, int scale) {
+        if (scale < 0 || scale + 2 >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Unsupported percentage scale: " + scale);
+        }
+        return divideHalfEven(Math.multiplyExact(part, POWERS_OF_TEN[scale + 2]), total);
+    }
+    
+    /**
+     * Integer division rounded half-even, matching {@link RoundingMode#HALF_EVEN}.
+     */
+    public static long divideHalfEven(long dividend, long divisor) {
+        if (divisor == 0L) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (dividend == Long.MIN_VALUE && divisor == -1L) {
+            throw new ArithmeticException("long overflow");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0L) {
+            return quotient;
+        }
+        boolean negative = (dividend < 0) != (divisor < 0);
+        // unsigned, so |Long.MIN_VALUE| and a doubled remainder past 2^63 still compare correctly
+        int comparison = Long.compareUnsigned(Math.abs(remainder) * 2, Math.abs(divisor));
+        if (comparison > 0 || (comparison == 0 && (quotient & 1L) != 0)) {
+            return negative ? quotient - 1 : quotient + 1;
+        }
+        return quotient;
+    }
+    
+    public int signum() {
+        return overflow != null ? overflow.signum() : Long.signum(units);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        if (overflow == null && other.overflow == null) {
+            return Long.compare(units, other.units);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        return compareTo(other) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+        return overflow != null ? overflow.hashCode() : Long.hashCode(units);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+    
+    private static Money fromScaled(BigDecimal scaled) {
+        if (scaled.unscaledValue().bitLength() < Long.SIZE) {
+            return ofUnits(scaled.unscaledValue().longValue());
+        }
+        return new Money(0L, scaled);
+    }
+}
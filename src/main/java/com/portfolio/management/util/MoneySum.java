@@ -0,0 +1,57 @@
+package com.portfolio.management.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable running total of minor units for aggregation loops. Stays on a primitive
+ * {@code long} and switches to {@link BigDecimal} only once the total would overflow.
+ * Not thread-safe; use one instance per loop.
+ */
+public final class MoneySum {
+    
+    private long units;
+    private BigDecimal overflow;
+    
+    public MoneySum add(long value) {
+        if (overflow == null) {
+            long sum = units + value;
+            if (((units ^ sum) & (value ^ sum)) >= 0) {
+                units = sum;
+                return this;
+            }
+            overflow = BigDecimal.valueOf(units, Money.SCALE);
+        }
+        overflow = overflow.add(BigDecimal.valueOf(value, Money.SCALE));
+        return this;
+    }
+    
+    public MoneySum add(BigDecimal amount) {
+        if (amount == null) {
+            return this;
+        }
+        try {
+            return add(Money.toUnits(amount));
+        } catch (ArithmeticException e) {
+            if (overflow == null) {
+                overflow = BigDecimal.valueOf(units, Money.SCALE);
+            }
+            overflow = overflow.add(amount.setScale(Money.SCALE, Money.ROUNDING));
+            return this;
+        }
+    }
+    
+    public MoneySum add(Money amount) {
+        if (amount.isCompact()) {
+            return add(amount.units());
+        }
+        return add(amount.toBigDecimal());
+    }
+    
+    public Money toMoney() {
+        return overflow == null ? Money.ofUnits(units) : Money.of(overflow);
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return overflow == null ? BigDecimal.valueOf(units, Money.SCALE) : overflow;
+    }
+}
@@ -0,0 +1,138 @@
+package com.portfolio.management.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index answering word-prefix queries over a set of documents.
+ * Reads are lock-free; writes are serialized so postings never drift from documents.
+ */
+public class PrefixIndex {
+    
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+    
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    
+    public synchronized void put(Long id, String label, String... fields) {
+        remove(id);
+        Set<String> tokens = tokenize(fields);
+        documents.put(id, new Document(label, tokens));
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+    
+    public synchronized void remove(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String token : document.tokens()) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+    
+    public String label(Long id) {
+        Document document = documents.get(id);
+        return document != null ? document.label() : null;
+    }
+    
+    public int size() {
+        return documents.size();
+    }
+    
+    /**
+     * Returns up to {@code limit} document ids where every query word is a prefix of some
+     * indexed word. Candidates come from the longest query word and are filtered against the
+     * remaining words. A single-word query stops after {@code limit} candidates, but when the
+     * longest word is a short prefix and the other words rarely match, the scan can visit every
+     * document under that prefix before it finds {@code limit} results.
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        String driver = null;
+        for (String token : queryTokens) {
+            if (driver == null || token.length() > driver.length()) {
+                driver = token;
+            }
+        }
+        
+        List<Long> results = new ArrayList<>(Math.min(limit, 64));
+        Set<Long> seen = new HashSet<>();
+        NavigableMap<String, Set<Long>> range = postings.subMap(driver, true, driver + MAX_CHAR, true);
+        for (Set<Long> ids : range.values()) {
+            for (Long id : ids) {
+                if (!seen.add(id)) {
+                    continue;
+                }
+                Document document = documents.get(id);
+                if (document != null && document.matchesAll(queryTokens)) {
+                    results.add(id);
+                    if (results.size() >= limit) {
+                        return results;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+    
+    public static Set<String> tokenize(String... fields) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            String normalized = field.toLowerCase(Locale.ROOT).trim();
+            for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    tokens.add(word);
+                }
+            }
+            // keep whole values such as e-mail addresses searchable as typed
+            if (normalized.indexOf(' ') < 0 && !tokens.contains(normalized)) {
+                tokens.add(normalized);
+            }
+        }
+        return tokens;
+    }
+    
+    private record Document(String label, Set<String> tokens) {
+        
+        boolean matchesAll(Set<String> prefixes) {
+            for (String prefix : prefixes) {
+                boolean matched = false;
+                for (String token : tokens) {
+                    if (token.startsWith(prefix)) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
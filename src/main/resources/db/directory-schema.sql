@@ -0,0 +1,21 @@
+-- Shard directory tables. Only used with portfolio.sharding.enabled=true, and only on the first
+-- shard. The default profile runs this script at startup (spring.sql.init); prod does not.
+
+create table if not exists user_shards (
+    user_id bigint primary key,
+    shard_id integer not null,
+    status varchar(16) not null default 'ACTIVE'
+);
+
+-- Global username/e-mail uniqueness across shards; each shard's users constraints only cover that
+-- shard. Claimed on signup before the user row exists, so user_id is null until the insert is done.
+-- Deployments that predate this table fill it once with POST /api/admin/shards/identities/backfill.
+create table if not exists user_identities (
+    id bigint generated by default as identity primary key,
+    user_id bigint,
+    username varchar(255) not null,
+    email varchar(255),
+    constraint user_identities_user_id_key unique (user_id),
+    constraint user_identities_username_key unique (username),
+    constraint user_identities_email_key unique (email)
+);
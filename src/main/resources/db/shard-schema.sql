@@ -0,0 +1,105 @@
+-- Entity tables, matching the JPA mappings in com.portfolio.management.entity. Apply to the
+-- database, or to every shard when sharding is enabled. The prod profile does not create the
+-- schema itself (spring.jpa.hibernate.ddl-auto=none); see docs/startup.md.
+
+create table if not exists users (
+    id bigint generated by default as identity primary key,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    name varchar(255),
+    email varchar(255),
+    created_at timestamp(6) not null,
+    constraint users_username_key unique (username),
+    constraint users_email_key unique (email)
+);
+
+create table if not exists portfolios (
+    id bigint generated by default as identity primary key,
+    name varchar(255) not null,
+    description varchar(255),
+    total_value numeric(38, 2),
+    is_active boolean,
+    created_at timestamp(6) not null,
+    user_id bigint not null references users (id)
+);
+
+create table if not exists investments (
+    id bigint generated by default as identity primary key,
+    name varchar(255) not null,
+    description varchar(255),
+    type varchar(255),
+    risk_level varchar(255),
+    amount numeric(38, 2) not null,
+    current_value numeric(38, 2) not null,
+    purchase_date date,
+    is_active boolean,
+    created_at timestamp(6) not null,
+    portfolio_id bigint not null references portfolios (id)
+);
+
+create table if not exists target_allocations (
+    id bigint generated by default as identity primary key,
+    asset_type varchar(255) not null,
+    target_weight numeric(5, 2) not null,
+    tolerance numeric(5, 2) not null,
+    portfolio_id bigint not null references portfolios (id),
+    constraint target_allocations_portfolio_id_asset_type_key unique (portfolio_id, asset_type)
+);
+
+create table if not exists transactions (
+    id bigint generated by default as identity primary key,
+    transaction_type varchar(255) not null,
+    amount numeric(38, 2) not null,
+    notes varchar(255),
+    date timestamp(6) not null,
+    portfolio_id bigint not null references portfolios (id),
+    investment_id bigint references investments (id)
+);
+
+create table if not exists performance (
+    id bigint generated by default as identity primary key,
+    date date not null,
+    total_value numeric(38, 2) not null,
+    daily_change numeric(38, 2),
+    percentage_change numeric(38, 2),
+    portfolio_id bigint not null references portfolios (id)
+);
+
+-- Foreign-key lookups used by the repositories; Hibernate does not create these
+create index if not exists portfolios_user_id_idx on portfolios (user_id);
+create index if not exists investments_portfolio_id_idx on investments (portfolio_id);
+create index if not exists transactions_portfolio_id_date_idx on transactions (portfolio_id, date);
+create index if not exists transactions_investment_id_idx on transactions (investment_id);
+create index if not exists performance_portfolio_id_date_idx on performance (portfolio_id, date);
+
+-- Disjoint ids across shards: shard k of n hands out k + 1, k + 1 + n, k + 1 + 2n, ... Rows keep
+-- their ids when a user moves between shards, so the application refuses to start unless every
+-- shard is set up this way. apply-schema.sh passes shard_index and shard_count (0 and 1 for a
+-- single database). Sequences that are off are restarted above the table's highest id.
+set portfolio.shard_index = :'shard_index';
+set portfolio.shard_count = :'shard_count';
+
+do $$
+declare
+    shard_index int := current_setting('portfolio.shard_index')::int;
+    shard_count int := current_setting('portfolio.shard_count')::int;
+    owned text;
+    sequence_name text;
+    increment bigint;
+    last_id bigint;
+    next_id bigint;
+begin
+    foreach owned in array array['users', 'portfolios', 'investments', 'target_allocations', 'transactions',
+            'performance'] loop
+        sequence_name := pg_get_serial_sequence(owned, 'id');
+        select seqincrement into increment from pg_sequence where seqrelid = sequence_name::regclass;
+        execute format('select last_value from %s', sequence_name) into last_id;
+        if increment <> shard_count or last_id % shard_count <> (shard_index + 1) % shard_count then
+            execute format('select coalesce(max(id), 0) from %I', owned) into last_id;
+            next_id := last_id + 1 + ((shard_index - last_id) % shard_count + shard_count) % shard_count;
+            execute format('alter table %I alter column id set increment by %s restart with %s',
+                    owned, shard_count, next_id);
+        end if;
+    end loop;
+end
+$$;
@@ -0,0 +1,32 @@
+package com.portfolio.management.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApiExceptionHandlerTest {
+    
+    private final ApiExceptionHandler handler = new ApiExceptionHandler();
+    
+    @Test
+    void takenUsernameIsAConflictNamingTheField() {
+        ResponseEntity<Map<String, String>> response = handler.handleUserAlreadyExists(
+                new UserAlreadyExistsException(UserAlreadyExistsException.Field.USERNAME));
+        
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(Map.of("error", "Username already taken", "field", "username"), response.getBody());
+    }
+    
+    @Test
+    void takenEmailIsAConflictNamingTheField() {
+        ResponseEntity<Map<String, String>> response = handler.handleUserAlreadyExists(
+                new UserAlreadyExistsException(UserAlreadyExistsException.Field.EMAIL, new IllegalStateException()));
+        
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(Map.of("error", "Email already in use", "field", "email"), response.getBody());
+    }
+}
@@ -0,0 +1,101 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.dto.PerformanceSummaryDTO;
+import com.portfolio.management.entity.Performance;
+import com.portfolio.management.entity.Portfolio;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PerformanceRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioValuationServiceTest {
+    
+    private static final Long USER_ID = 7L;
+    private static final Long PORTFOLIO_ID = 11L;
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    
+    private PerformanceRepository performanceRepository;
+    private PortfolioValuationService service;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+        performanceRepository = mock(PerformanceRepository.class);
+        when(portfolioRepository.findByIdAndUserId(PORTFOLIO_ID, USER_ID)).thenReturn(Optional.of(new Portfolio()));
+        ShardRouter shardRouter = new ShardRouter(mock(ObjectProvider.class), new ShardingProperties());
+        service = new PortfolioValuationService(portfolioRepository, mock(InvestmentRepository.class),
+                performanceRepository, shardRouter, mock(PlatformTransactionManager.class));
+    }
+    
+    @Test
+    void summarizeMatchesExactOnRandomHistories() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int run = 0; run < 500; run++) {
+            List<Performance> history = new ArrayList<>();
+            // three decimals so rounding ties occur; values cross zero to cover negative totals
+            long value = random.nextLong(-5_000_000L, 50_000_000L);
+            int days = 1 + random.nextInt(60);
+            for (int day = 0; day < days; day++) {
+                history.add(performance(day, BigDecimal.valueOf(value, 3)));
+                value += random.nextLong(-2_000_000L, 2_000_000L);
+            }
+            
+            assertEquals(service.summarizeExact(PORTFOLIO_ID, history), service.summarize(PORTFOLIO_ID, history));
+        }
+    }
+    
+    @Test
+    void summarizeMatchesExactOnTiesAndZeroStart() {
+        List<Performance> history = List.of(
+                performance(0, new BigDecimal("0.005")),
+                performance(1, new BigDecimal("80.015")),
+                performance(2, new BigDecimal("60.025")),
+                performance(3, new BigDecimal("-10.00")),
+                performance(4, new BigDecimal("79.995")));
+        
+        PerformanceSummaryDTO summary = service.summarize(PORTFOLIO_ID, history);
+        assertEquals(service.summarizeExact(PORTFOLIO_ID, history), summary);
+        assertNull(summary.getPercentageChange());
+        assertEquals(new BigDecimal("112.4969"), summary.getMaxDrawdownPercentage());
+    }
+    
+    @Test
+    void summarizePerformanceFallsBackToExactOnOverflow() {
+        List<Performance> history = List.of(
+                performance(0, new BigDecimal("1000.00")),
+                performance(1, new BigDecimal("1E+20")),
+                performance(2, new BigDecimal("9E+19")));
+        when(performanceRepository.findByPortfolioIdAndDateBetweenOrderByDateAsc(PORTFOLIO_ID, START, START.plusDays(2)))
+                .thenReturn(history);
+        
+        assertThrows(ArithmeticException.class, () -> service.summarize(PORTFOLIO_ID, history));
+        assertEquals(service.summarizeExact(PORTFOLIO_ID, history),
+                service.summarizePerformance(USER_ID, PORTFOLIO_ID, START, START.plusDays(2)));
+    }
+    
+    private static Performance performance(int day, BigDecimal totalValue) {
+        Performance performance = new Performance();
+        performance.setDate(START.plusDays(day));
+        performance.setTotalValue(totalValue);
+        return performance;
+    }
+}
@@ -0,0 +1,175 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.dto.RebalanceProposalDTO;
+import com.portfolio.management.dto.TransactionDTO;
+import com.portfolio.management.entity.TargetAllocation;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.TargetAllocationRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class RebalancingServiceTest {
+    
+    private static final Long PORTFOLIO_ID = 11L;
+    
+    private RebalancingService service;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ShardRouter shardRouter = new ShardRouter(mock(ObjectProvider.class), new ShardingProperties());
+        service = new RebalancingService(mock(PortfolioRepository.class), mock(InvestmentRepository.class),
+                mock(TargetAllocationRepository.class), mock(NamedParameterJdbcTemplate.class),
+                mock(PlatformTransactionManager.class), shardRouter, 8, 1000, 10);
+    }
+    
+    @Test
+    void planTradesOnlyOutOfBandTypes() {
+        RebalanceProposalDTO proposal = service.plan(PORTFOLIO_ID,
+                List.of(holding("STOCK", "6000.00"), holding("BOND", "2000.00"), holding("CASH", "2000.00")),
+                List.of(target("STOCK", "50", "5"), target("BOND", "30", "5"), target("CASH", "20", "5")));
+        
+        assertEquals(new BigDecimal("10000.00"), proposal.getRebalancedValue());
+        assertEquals(Map.of("STOCK", new BigDecimal("-1000.00"), "BOND", new BigDecimal("1000.00")),
+                trades(proposal));
+        assertEquals("Rebalance STOCK toward 50%", proposal.getTransactions().get(0).getNotes());
+    }
+    
+    @Test
+    void planLeavesDeviationsWithinToleranceAlone() {
+        List<TargetAllocation> targets = List.of(target("STOCK", "60", "5"), target("BOND", "40", "5"));
+        
+        assertEquals(Map.of(), trades(service.plan(PORTFOLIO_ID,
+                List.of(holding("STOCK", "6400.00"), holding("BOND", "3600.00")), targets)));
+        // a deviation equal to the band is still inside it
+        assertEquals(Map.of(), trades(service.plan(PORTFOLIO_ID,
+                List.of(holding("STOCK", "6500.00"), holding("BOND", "3500.00")), targets)));
+        assertEquals(Map.of("STOCK", new BigDecimal("-500.01"), "BOND", new BigDecimal("500.01")),
+                trades(service.plan(PORTFOLIO_ID,
+                        List.of(holding("STOCK", "6500.01"), holding("BOND", "3499.99")), targets)));
+    }
+    
+    @Test
+    void planOffsetsFromInBandTypesDeviatingTheOtherWay() {
+        // STOCK must sell 300; BOND is 400 under target and takes all of it, CASH is over target and is skipped
+        RebalanceProposalDTO proposal = service.plan(PORTFOLIO_ID,
+                List.of(holding("STOCK", "5300.00"), holding("BOND", "2600.00"), holding("CASH", "2100.00")),
+                List.of(target("STOCK", "50", "2"), target("BOND", "30", "10"), target("CASH", "20", "10")));
+        
+        assertEquals(Map.of("STOCK", new BigDecimal("-300.00"), "BOND", new BigDecimal("300.00")), trades(proposal));
+    }
+    
+    @Test
+    void planOffsetsLargestDeviationFirst() {
+        RebalanceProposalDTO proposal = service.plan(PORTFOLIO_ID,
+                List.of(holding("STOCK", "5300.00"), holding("BOND", "2750.00"), holding("CASH", "1950.00")),
+                List.of(target("STOCK", "50", "2"), target("BOND", "30", "10"), target("CASH", "20", "10")));
+        
+        assertEquals(Map.of("STOCK", new BigDecimal("-300.00"), "BOND", new BigDecimal("250.00"),
+                "CASH", new BigDecimal("50.00")), trades(proposal));
+    }
+    
+    @Test
+    void planIsSelfFinancingOnRandomPortfolios() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int run = 0; run < 500; run++) {
+            int types = 2 + random.nextInt(5);
+            List<InvestmentRepository.HoldingRow> holdings = new ArrayList<>();
+            List<TargetAllocation> targets = new ArrayList<>();
+            int remainingWeight = 100;
+            long total = 0L;
+            Map<String, Long> current = new HashMap<>();
+            for (int i = 0; i < types; i++) {
+                int weight = i == types - 1 ? remainingWeight : random.nextInt(remainingWeight + 1);
+                remainingWeight -= weight;
+                long units = random.nextLong(0L, 10_000_000L);
+                total += units;
+                current.put("T" + i, units);
+                holdings.add(holding("T" + i, BigDecimal.valueOf(units, 2).toPlainString()));
+                targets.add(target("T" + i, String.valueOf(weight), String.valueOf(random.nextInt(6))));
+            }
+            
+            Map<String, BigDecimal> trades = trades(service.plan(PORTFOLIO_ID, holdings, targets));
+            BigDecimal net = trades.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            // rounding each type's target to the cent may leave up to half a cent per type
+            assertTrue(net.abs().compareTo(BigDecimal.valueOf(types, 2)) <= 0, "net " + net);
+            for (TargetAllocation target : targets) {
+                BigDecimal value = BigDecimal.valueOf(current.get(target.getAssetType()), 2);
+                BigDecimal desired = BigDecimal.valueOf(total, 2).multiply(target.getTargetWeight())
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_EVEN);
+                BigDecimal band = BigDecimal.valueOf(total, 2).multiply(target.getTolerance())
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_EVEN);
+                if (desired.subtract(value).abs().compareTo(band) > 0) {
+                    assertEquals(desired, value.add(trades.getOrDefault(target.getAssetType(), BigDecimal.ZERO)
+                            .setScale(2)), target.getAssetType());
+                }
+            }
+        }
+    }
+    
+    @Test
+    void planProposesNothingForAnEmptyPortfolio() {
+        RebalanceProposalDTO proposal = service.plan(PORTFOLIO_ID, List.of(),
+                List.of(target("STOCK", "60", "5"), target("BOND", "40", "5")));
+        
+        assertEquals(new BigDecimal("0.00"), proposal.getRebalancedValue());
+        assertEquals(List.of(), proposal.getTransactions());
+    }
+    
+    // Signed amounts by asset type: buys positive, sells negative
+    private static Map<String, BigDecimal> trades(RebalanceProposalDTO proposal) {
+        Map<String, BigDecimal> trades = new HashMap<>();
+        for (TransactionDTO transaction : proposal.getTransactions()) {
+            String assetType = transaction.getNotes().split(" ")[1];
+            trades.put(assetType, RebalancingService.PROPOSED_SELL.equals(transaction.getTransactionType())
+                    ? transaction.getAmount().negate()
+                    : transaction.getAmount());
+        }
+        return trades;
+    }
+    
+    private static InvestmentRepository.HoldingRow holding(String type, String value) {
+        return new InvestmentRepository.HoldingRow() {
+            @Override
+            public Long getPortfolioId() {
+                return PORTFOLIO_ID;
+            }
+            
+            @Override
+            public String getType() {
+                return type;
+            }
+            
+            @Override
+            public BigDecimal getValue() {
+                return new BigDecimal(value);
+            }
+        };
+    }
+    
+    private static TargetAllocation target(String assetType, String weight, String tolerance) {
+        TargetAllocation target = new TargetAllocation();
+        target.setAssetType(assetType);
+        target.setTargetWeight(new BigDecimal(weight));
+        target.setTolerance(new BigDecimal(tolerance));
+        return target;
+    }
+}
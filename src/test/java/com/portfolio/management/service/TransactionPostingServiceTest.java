@@ -0,0 +1,201 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.config.GroupCommitProperties;
+import com.portfolio.management.dto.PostingMetricsDTO;
+import com.portfolio.management.dto.TransactionCreateDTO;
+import com.portfolio.management.dto.TransactionDTO;
+import com.portfolio.management.repository.InvestmentRepository;
+import com.portfolio.management.repository.PortfolioRepository;
+import com.portfolio.management.repository.TransactionRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.sharding.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionPostingServiceTest {
+    
+    private static final Long USER_ID = 7L;
+    
+    private PortfolioRepository portfolioRepository;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private TransactionPostingService service;
+    // Rows of every batched insert, in commit order; each element is one insert's notes
+    private final List<List<String>> inserts = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    
+    @BeforeEach
+    void setUp() {
+        portfolioRepository = mock(PortfolioRepository.class);
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(portfolioRepository.findOwnersByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> portfolioIds = invocation.getArgument(0);
+            return portfolioIds.stream().map(TransactionPostingServiceTest::ownedByUser).toList();
+        });
+        doAnswer(invocation -> {
+            SqlParameterSource[] rows = invocation.getArgument(1);
+            KeyHolder keys = invocation.getArgument(2);
+            List<String> notes = new ArrayList<>();
+            for (SqlParameterSource row : rows) {
+                notes.add((String) row.getValue("notes"));
+            }
+            synchronized (inserts) {
+                inserts.add(notes);
+            }
+            // the database rejects the whole statement, as a constraint violation would
+            if (notes.contains("bad")) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            for (int i = 0; i < rows.length; i++) {
+                Map<String, Object> key = new HashMap<>();
+                key.put("id", ids.incrementAndGet());
+                keys.getKeyList().add(key);
+            }
+            return null;
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class),
+                any(String[].class));
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+    
+    @Test
+    void keepsEachPortfolioInSubmissionOrderAcrossLanes() throws Exception {
+        service = service(4, 7, Duration.ofMillis(1));
+        List<CompletableFuture<TransactionDTO>> futures = new ArrayList<>();
+        for (int sequence = 0; sequence < 100; sequence++) {
+            for (long portfolioId = 1; portfolioId <= 8; portfolioId++) {
+                futures.add(service.enqueue(USER_ID, posting(portfolioId, portfolioId + ":" + sequence)));
+            }
+        }
+        for (CompletableFuture<TransactionDTO> future : futures) {
+            assertNotNull(future.get(10, TimeUnit.SECONDS).getId());
+        }
+        
+        Map<String, Integer> lastSequence = new HashMap<>();
+        int rows = 0;
+        for (List<String> insert : inserts) {
+            for (String notes : insert) {
+                String[] parts = notes.split(":");
+                int sequence = Integer.parseInt(parts[1]);
+                Integer previous = lastSequence.put(parts[0], sequence);
+                assertEquals(previous == null ? 0 : previous + 1, sequence, "portfolio " + parts[0]);
+                rows++;
+            }
+        }
+        assertEquals(800, rows);
+        assertTrue(inserts.size() < rows, "postings were not batched");
+    }
+    
+    @Test
+    void retriesAFailedBatchOnePostingAtATime() throws Exception {
+        // one lane and a long wait so all three postings share a batch
+        service = service(1, 10, Duration.ofMillis(200));
+        CompletableFuture<TransactionDTO> first = service.enqueue(USER_ID, posting(1L, "first"));
+        CompletableFuture<TransactionDTO> bad = service.enqueue(USER_ID, posting(1L, "bad"));
+        CompletableFuture<TransactionDTO> last = service.enqueue(USER_ID, posting(2L, "last"));
+        
+        assertEquals("first", first.get(10, TimeUnit.SECONDS).getNotes());
+        assertEquals("last", last.get(10, TimeUnit.SECONDS).getNotes());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, failure.getCause());
+        assertEquals(List.of(List.of("first", "bad", "last"), List.of("first"), List.of("bad"), List.of("last")),
+                inserts);
+        
+        PostingMetricsDTO metrics = service.getMetrics().get(1);
+        assertEquals(TransactionPostingService.MODE_GROUP_COMMIT, metrics.getMode());
+        assertEquals(2L, metrics.getPostings());
+        assertEquals(1L, metrics.getFailures());
+    }
+    
+    @Test
+    void commitsQueuedPostingsOnShutdown() throws Exception {
+        // a batch stays open for a second, so the postings are still queued when shutdown starts
+        service = service(2, 100, Duration.ofSeconds(1));
+        List<CompletableFuture<TransactionDTO>> futures = new ArrayList<>();
+        for (long portfolioId = 1; portfolioId <= 10; portfolioId++) {
+            futures.add(service.enqueue(USER_ID, posting(portfolioId, "queued " + portfolioId)));
+        }
+        
+        service.shutdown();
+        
+        for (CompletableFuture<TransactionDTO> future : futures) {
+            assertTrue(future.isDone());
+            assertNotNull(future.get().getId());
+        }
+        assertEquals(10, inserts.stream().mapToInt(List::size).sum());
+        RuntimeException rejected = assertThrows(RuntimeException.class,
+                () -> service.enqueue(USER_ID, posting(1L, "late")));
+        assertEquals("Transaction writer is shutting down", rejected.getMessage());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private TransactionPostingService service(int lanes, int maxBatch, Duration maxLatency) {
+        GroupCommitProperties properties = new GroupCommitProperties();
+        properties.setEnabled(true);
+        properties.setLanes(lanes);
+        properties.setMaxBatch(maxBatch);
+        properties.setMaxLatency(maxLatency);
+        ShardRouter shardRouter = new ShardRouter(mock(ObjectProvider.class), new ShardingProperties());
+        return new TransactionPostingService(mock(TransactionRepository.class), portfolioRepository,
+                mock(InvestmentRepository.class), jdbcTemplate, shardRouter, properties,
+                mock(PlatformTransactionManager.class));
+    }
+    
+    private static TransactionCreateDTO posting(Long portfolioId, String notes) {
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setTransactionType("BUY");
+        dto.setAmount(new BigDecimal("10.00"));
+        dto.setNotes(notes);
+        dto.setPortfolioId(portfolioId);
+        return dto;
+    }
+    
+    private static PortfolioRepository.OwnerRow ownedByUser(Long portfolioId) {
+        return new PortfolioRepository.OwnerRow() {
+            @Override
+            public Long getId() {
+                return portfolioId;
+            }
+            
+            @Override
+            public Long getUserId() {
+                return USER_ID;
+            }
+        };
+    }
+}
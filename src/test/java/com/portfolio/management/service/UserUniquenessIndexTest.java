@@ -0,0 +1,135 @@
+package com.portfolio.management.service;
+
+import com.portfolio.management.exception.UserAlreadyExistsException;
+import com.portfolio.management.repository.UserRepository;
+import com.portfolio.management.sharding.ShardRouter;
+import com.portfolio.management.sharding.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserUniquenessIndexTest {
+    
+    private UserRepository userRepository;
+    private UserUniquenessIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        UserRepository.SearchRow alice = row("alice", "alice@example.com");
+        when(userRepository.streamSearchRows()).thenAnswer(invocation -> Stream.of(alice));
+        index = index(true);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void answersDefinitelyFreeOnlyOnceWarm() {
+        assertFalse(index.isUsernameDefinitelyFree("bob"));
+        
+        index.warmUp();
+        
+        assertTrue(index.isUsernameDefinitelyFree("bob"));
+        assertTrue(index.isEmailDefinitelyFree("bob@example.com"));
+        assertFalse(index.isUsernameDefinitelyFree("alice"));
+        assertFalse(index.isEmailDefinitelyFree("alice@example.com"));
+    }
+    
+    @Test
+    void committedReservationIsRecordedAndReleased() {
+        index.warmUp();
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve("bob", "bob@example.com");
+        
+        UserAlreadyExistsException conflict = assertThrows(UserAlreadyExistsException.class,
+                () -> index.reserve("bob", null));
+        assertEquals(UserAlreadyExistsException.Field.USERNAME, conflict.getField());
+        
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertFalse(index.isUsernameDefinitelyFree("bob"));
+        assertFalse(index.isEmailDefinitelyFree("bob@example.com"));
+        // the pending entries are gone; the database constraint decides from here on
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve("bob", "bob@example.com");
+    }
+    
+    @Test
+    void rolledBackReservationLeavesValuesFree() {
+        index.warmUp();
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve("bob", "bob@example.com");
+        
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertTrue(index.isUsernameDefinitelyFree("bob"));
+        assertTrue(index.isEmailDefinitelyFree("bob@example.com"));
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve("bob", "bob@example.com");
+    }
+    
+    @Test
+    void emailConflictReleasesTheUsername() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve("bob", "shared@example.com");
+        
+        UserAlreadyExistsException conflict = assertThrows(UserAlreadyExistsException.class,
+                () -> index.reserve("carol", "shared@example.com"));
+        assertEquals(UserAlreadyExistsException.Field.EMAIL, conflict.getField());
+        index.reserve("carol", null);
+    }
+    
+    @Test
+    void disabledIndexNeverSkipsTheDatabase() {
+        UserUniquenessIndex disabled = index(false);
+        
+        disabled.warmUp();
+        
+        assertFalse(disabled.isUsernameDefinitelyFree("bob"));
+        assertFalse(disabled.isEmailDefinitelyFree("bob@example.com"));
+        verify(userRepository, never()).streamSearchRows();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private UserUniquenessIndex index(boolean enabled) {
+        ShardRouter shardRouter = new ShardRouter(mock(ObjectProvider.class), new ShardingProperties());
+        return new UserUniquenessIndex(userRepository, shardRouter, mock(PlatformTransactionManager.class),
+                1_000, 0.01, enabled);
+    }
+    
+    // Runs the callbacks a transaction manager would on commit or rollback
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+    
+    private static UserRepository.SearchRow row(String username, String email) {
+        UserRepository.SearchRow row = mock(UserRepository.SearchRow.class);
+        when(row.getUsername()).thenReturn(username);
+        when(row.getEmail()).thenReturn(email);
+        return row;
+    }
+}
@@ -0,0 +1,89 @@
+package com.portfolio.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+    
+    @Test
+    void neverReportsAnInsertedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        List<String> values = randomValues(new SplittableRandom(42), 50_000);
+        values.addAll(List.of("", "Ünïcødé", "user@example.com", "USER@example.com"));
+        values.forEach(filter::put);
+        
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+    
+    @Test
+    void keepsEveryValueUnderConcurrentInserts() throws Exception {
+        // a small filter so threads keep setting bits in the same words
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        SplittableRandom root = new SplittableRandom(7);
+        List<List<String>> slices = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            slices.add(randomValues(root.split(), 5_000));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(slices.size());
+        try {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (List<String> slice : slices) {
+                inserts.add(executor.submit(() -> slice.forEach(filter::put)));
+            }
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        for (List<String> slice : slices) {
+            for (String value : slice) {
+                assertTrue(filter.mightContain(value), value);
+            }
+        }
+    }
+    
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(20_000, 0.01);
+        randomValues(new SplittableRandom(1), 20_000).forEach(filter::put);
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            // the "absent:" prefix never occurs among the inserted values
+            if (filter.mightContain("absent:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+    }
+    
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        
+        assertFalse(filter.mightContain("alice"));
+        filter.put("alice");
+        assertTrue(filter.mightContain("alice"));
+    }
+    
+    private static List<String> randomValues(SplittableRandom random, int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(Long.toString(random.nextLong(), 36) + "@" + random.nextInt(1_000) + ".example");
+        }
+        return values;
+    }
+}
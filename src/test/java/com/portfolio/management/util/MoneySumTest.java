@@ -0,0 +1,68 @@
+package com.portfolio.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneySumTest {
+    
+    @Test
+    void matchesBigDecimalSumOfRoundedAmounts() {
+        SplittableRandom random = new SplittableRandom(7);
+        MoneySum sum = new MoneySum();
+        BigDecimal expected = BigDecimal.ZERO.setScale(Money.SCALE);
+        for (int i = 0; i < 10_000; i++) {
+            // three decimals so roughly one amount in ten is a rounding tie
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(-100_000_000L, 100_000_000L), 3);
+            sum.add(amount);
+            expected = expected.add(amount.setScale(Money.SCALE, Money.ROUNDING));
+        }
+        
+        assertEquals(expected, sum.toBigDecimal());
+        assertEquals(expected, sum.toMoney().toBigDecimal());
+    }
+    
+    @Test
+    void roundsEachAmountHalfEvenBeforeAdding() {
+        MoneySum sum = new MoneySum()
+                .add(new BigDecimal("0.005"))
+                .add(new BigDecimal("0.015"))
+                .add(new BigDecimal("-0.025"))
+                .add((BigDecimal) null);
+        
+        assertEquals(new BigDecimal("0.00"), sum.toBigDecimal());
+    }
+    
+    @Test
+    void addFallsBackToBigDecimalOnLongOverflow() {
+        MoneySum sum = new MoneySum().add(Long.MAX_VALUE).add(1L);
+        BigDecimal expected = BigDecimal.valueOf(Long.MAX_VALUE, Money.SCALE).add(new BigDecimal("0.01"));
+        
+        assertEquals(expected, sum.toBigDecimal());
+        assertFalse(sum.toMoney().isCompact());
+        
+        sum.add(-2L);
+        assertEquals(expected.subtract(new BigDecimal("0.02")), sum.toBigDecimal());
+        assertTrue(sum.toMoney().isCompact());
+        assertEquals(Long.MAX_VALUE - 1, sum.toMoney().units());
+    }
+    
+    @Test
+    void addFallsBackForAmountsOutsideLongRange() {
+        BigDecimal huge = new BigDecimal("-1E+20");
+        MoneySum sum = new MoneySum()
+                .add(new BigDecimal("12.345"))
+                .add(huge)
+                .add(Money.of(new BigDecimal("1E+20")))
+                .add(Money.of(new BigDecimal("-0.01")));
+        
+        assertEquals(new BigDecimal("12.33"), sum.toBigDecimal());
+        assertTrue(sum.toMoney().isCompact());
+        assertEquals(1233L, sum.toMoney().units());
+    }
+}
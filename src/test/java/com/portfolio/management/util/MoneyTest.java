@@ -0,0 +1,155 @@
+package com.portfolio.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+    
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    @Test
+    void ofRoundsHalfEven() {
+        assertEquals(new BigDecimal("0.12"), Money.of(new BigDecimal("0.125")).toBigDecimal());
+        assertEquals(new BigDecimal("0.14"), Money.of(new BigDecimal("0.135")).toBigDecimal());
+        assertEquals(new BigDecimal("-0.12"), Money.of(new BigDecimal("-0.125")).toBigDecimal());
+        assertEquals(new BigDecimal("-0.14"), Money.of(new BigDecimal("-0.135")).toBigDecimal());
+        assertEquals(new BigDecimal("5.00"), Money.of(5).toBigDecimal());
+    }
+    
+    @Test
+    void plusAndMinusMatchBigDecimalWithNegatives() {
+        String[][] pairs = {
+                {"10.25", "-3.10"}, {"-10.25", "3.10"}, {"-0.01", "-0.01"}, {"0.00", "-7.99"}, {"-123456.78", "123456.78"}
+        };
+        for (String[] pair : pairs) {
+            BigDecimal a = new BigDecimal(pair[0]);
+            BigDecimal b = new BigDecimal(pair[1]);
+            assertEquals(a.add(b), Money.of(a).plus(Money.of(b)).toBigDecimal());
+            assertEquals(a.subtract(b), Money.of(a).minus(Money.of(b)).toBigDecimal());
+            assertEquals(a.negate(), Money.of(a).negate().toBigDecimal());
+        }
+    }
+    
+    @Test
+    void plusFallsBackToBigDecimalOnOverflow() {
+        Money max = Money.ofUnits(Long.MAX_VALUE);
+        Money sum = max.plus(Money.ofUnits(1L));
+        
+        assertFalse(sum.isCompact());
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, Money.SCALE).add(new BigDecimal("0.01")), sum.toBigDecimal());
+        assertTrue(sum.minus(Money.ofUnits(1L)).isCompact());
+        assertEquals(max, sum.minus(Money.ofUnits(1L)));
+    }
+    
+    @Test
+    void minusAndNegateFallBackToBigDecimalOnOverflow() {
+        Money min = Money.ofUnits(Long.MIN_VALUE);
+        BigDecimal exactMin = BigDecimal.valueOf(Long.MIN_VALUE, Money.SCALE);
+        
+        Money difference = min.minus(Money.ofUnits(1L));
+        assertFalse(difference.isCompact());
+        assertEquals(exactMin.subtract(new BigDecimal("0.01")), difference.toBigDecimal());
+        
+        Money negated = min.negate();
+        assertFalse(negated.isCompact());
+        assertEquals(exactMin.negate(), negated.toBigDecimal());
+        assertThrows(ArithmeticException.class, negated::units);
+    }
+    
+    @Test
+    void timesRoundsTiesHalfEven() {
+        String[][] cases = {
+                {"0.05", "0.5", "0.02"}, {"0.15", "0.5", "0.08"}, {"-0.05", "0.5", "-0.02"}, {"-0.15", "0.5", "-0.08"},
+                {"0.25", "0.1", "0.02"}, {"0.35", "0.1", "0.04"}, {"12.34", "-1.5", "-18.51"}, {"1.00", "0", "0.00"}
+        };
+        for (String[] c : cases) {
+            BigDecimal amount = new BigDecimal(c[0]);
+            BigDecimal factor = new BigDecimal(c[1]);
+            BigDecimal expected = amount.multiply(factor).setScale(Money.SCALE, Money.ROUNDING);
+            assertEquals(new BigDecimal(c[2]), expected);
+            assertEquals(expected, Money.of(amount).times(factor).toBigDecimal());
+        }
+    }
+    
+    @Test
+    void timesFallsBackToBigDecimal() {
+        Money max = Money.ofUnits(Long.MAX_VALUE);
+        BigDecimal exactMax = max.toBigDecimal();
+        
+        assertEquals(exactMax.multiply(BigDecimal.valueOf(2)).setScale(Money.SCALE, Money.ROUNDING),
+                max.times(BigDecimal.valueOf(2)).toBigDecimal());
+        // negative scale and a factor wider than a long both take the exact path
+        BigDecimal scaledUp = new BigDecimal("1E+3");
+        assertEquals(new BigDecimal("1230.00"), Money.of(new BigDecimal("1.23")).times(scaledUp).toBigDecimal());
+        BigDecimal wide = new BigDecimal("0.50000000000000000000001");
+        assertEquals(new BigDecimal("0.08"), Money.of(new BigDecimal("0.15")).times(wide).toBigDecimal());
+    }
+    
+    @Test
+    void percentOfRoundsTiesHalfEven() {
+        String[][] cases = {
+                {"1", "8", "0", "12"}, {"3", "8", "0", "38"}, {"-1", "8", "0", "-12"}, {"-3", "8", "0", "-38"},
+                {"1", "-8", "0", "-12"}, {"0.01", "16", "3", "0.062"}, {"2", "3", "4", "66.6667"}
+        };
+        for (String[] c : cases) {
+            BigDecimal part = new BigDecimal(c[0]);
+            BigDecimal total = new BigDecimal(c[1]);
+            int scale = Integer.parseInt(c[2]);
+            BigDecimal expected = part.setScale(Money.SCALE).multiply(HUNDRED)
+                    .divide(total.setScale(Money.SCALE), scale, Money.ROUNDING);
+            assertEquals(new BigDecimal(c[3]), expected);
+            assertEquals(expected, Money.of(part).percentOf(Money.of(total), scale));
+        }
+    }
+    
+    @Test
+    void percentOfFallsBackWhenTheScaledPartOverflows() {
+        Money part = Money.ofUnits(Long.MAX_VALUE / 10);
+        Money total = Money.ofUnits(7L);
+        BigDecimal expected = part.toBigDecimal().multiply(HUNDRED).divide(total.toBigDecimal(), 4, Money.ROUNDING);
+        
+        assertThrows(ArithmeticException.class, () -> Money.percentUnits(part.units(), total.units(), 4));
+        assertEquals(expected, part.percentOf(total, 4));
+    }
+    
+    @Test
+    void divideHalfEvenMatchesBigDecimal() {
+        long[][] cases = {
+                {5, 2}, {7, 2}, {-5, 2}, {-7, 2}, {5, -2}, {-5, -2}, {1, 3}, {2, 3}, {-2, 3},
+                {1, Long.MIN_VALUE}, {Long.MIN_VALUE, 2}, {Long.MIN_VALUE + 1, -2}, {Long.MAX_VALUE, 2},
+                {Long.MAX_VALUE, Long.MIN_VALUE}, {Long.MIN_VALUE / 2, Long.MIN_VALUE}, {Long.MAX_VALUE, Long.MAX_VALUE - 1}
+        };
+        for (long[] c : cases) {
+            assertEquals(exactQuotient(c[0], c[1]), Money.divideHalfEven(c[0], c[1]), c[0] + " / " + c[1]);
+        }
+        
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long dividend = random.nextLong();
+            long divisor = random.nextBoolean() ? random.nextLong() : random.nextLong(-1_000, 1_000);
+            if (divisor == 0L || (dividend == Long.MIN_VALUE && divisor == -1L)) {
+                continue;
+            }
+            assertEquals(exactQuotient(dividend, divisor), Money.divideHalfEven(dividend, divisor),
+                    dividend + " / " + divisor);
+        }
+    }
+    
+    @Test
+    void divideHalfEvenRejectsZeroAndOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.divideHalfEven(1L, 0L));
+        assertThrows(ArithmeticException.class, () -> Money.divideHalfEven(Long.MIN_VALUE, -1L));
+    }
+    
+    private static long exactQuotient(long dividend, long divisor) {
+        return BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+}
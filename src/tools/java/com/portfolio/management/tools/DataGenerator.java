@@ -0,0 +1,482 @@
+package com.portfolio.management.tools;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Fills users, portfolios, investments, target allocations, transactions and performance with
+ * synthetic data using {@code COPY ... FROM STDIN}.
+ * <p>
+ * Output depends only on the options and the tables' ids and sequences: each user draws from
+ * its own random stream derived from {@code --seed} and the user's index. Each table is loaded in its own pass over the users,
+ * and every pass regenerates the same data and keeps only that table's rows, so foreign keys hold
+ * without keeping anything in memory. Portfolio counts are geometric, investment counts are
+ * log-normal (a few portfolios hold hundreds of positions), amounts are log-normal, and
+ * performance is a weekday random walk from each portfolio's start date with drift and
+ * volatility taken from its asset mix. A share of the portfolios gets target allocations near
+ * its purchase mix, so rebalancing finds some asset types inside their band and some outside.
+ * Targets are drawn from a second per-user stream, so they do not change the other tables for a
+ * given seed. Ids continue after both the current maximum of each table and its identity
+ * sequence, in steps of the sequence's increment, so a shard set up by {@code shard-schema.sql}
+ * only receives ids of its own stride. The sequences are moved past the generated ids when
+ * loading finishes.
+ * <p>
+ * With {@code --directory-url}, the generated users are also registered in {@code user_shards}
+ * (under {@code --shard-id}) and {@code user_identities} on the directory database, after the
+ * load has committed. Run the generator once per shard to fill a sharded cluster.
+ * <p>
+ * Usage: see {@code scripts/generate-data.sh} and {@code docs/load-testing.md}.
+ */
+public final class DataGenerator {
+    
+    private static final String[] TYPES = {"STOCK", "BOND", "ETF", "CRYPTO"};
+    private static final double[] TYPE_CUMULATIVE = {0.55, 0.75, 0.90, 1.0};
+    private static final String[] RISK_LEVELS = {"MEDIUM", "LOW", "MEDIUM", "HIGH"};
+    private static final double[] ANNUAL_RETURN = {0.08, 0.04, 0.07, 0.15};
+    private static final double[] ANNUAL_VOLATILITY = {0.20, 0.06, 0.15, 0.80};
+    private static final double[] TOLERANCES = {2.5, 5, 10};
+    private static final double TRADING_DAYS = 252;
+    private static final int FLUSH_CHARS = 1 << 20;
+    
+    private enum Table {
+        USERS("users", "id, username, password, name, email, created_at"),
+        PORTFOLIOS("portfolios", "id, name, description, total_value, is_active, created_at, user_id"),
+        INVESTMENTS("investments", "id, name, description, type, risk_level, amount, current_value, "
+                + "purchase_date, is_active, created_at, portfolio_id"),
+        TARGET_ALLOCATIONS("target_allocations", "id, asset_type, target_weight, tolerance, portfolio_id"),
+        TRANSACTIONS("transactions", "id, transaction_type, amount, notes, date, portfolio_id, investment_id"),
+        PERFORMANCE("performance", "id, date, total_value, daily_change, percentage_change, portfolio_id");
+        
+        final String name;
+        final String columns;
+        
+        Table(String name, String columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+    
+    private final long seed;
+    private final long users;
+    private final int years;
+    private final LocalDate asOf;
+    private final int maxPortfolios;
+    private final double meanInvestments;
+    private final int maxInvestments;
+    private final double transactionsPerYear;
+    private final double targetShare;
+    private final String passwordHash;
+    
+    // Id counters, reset at the start of every pass; ids step by the sequence increment
+    private final long[] baseIds = new long[Table.values().length];
+    private final long[] nextIds = new long[Table.values().length];
+    private final long[] increments = new long[Table.values().length];
+    
+    private Table target;
+    private CopyStream out;
+    
+    private DataGenerator(ToolArgs args) {
+        this.seed = args.number("seed", 42);
+        this.users = args.number("users", 10_000);
+        this.years = (int) args.number("years", 3);
+        this.asOf = args.date("as-of", LocalDate.of(2025, 12, 31));
+        this.maxPortfolios = (int) args.number("max-portfolios", 8);
+        this.meanInvestments = args.decimal("mean-investments", 12);
+        this.maxInvestments = (int) args.number("max-investments", 400);
+        this.transactionsPerYear = args.decimal("transactions-per-year", 6);
+        this.targetShare = args.decimal("target-share", 0.6);
+        this.passwordHash = args.string("password-hash", "{noop}password");
+    }
+    
+    public static void main(String[] argv) throws Exception {
+        ToolArgs args = new ToolArgs(argv);
+        DataGenerator generator = new DataGenerator(args);
+        String directoryUrl = args.string("directory-url", null);
+        if (directoryUrl != null && !args.has("shard-id")) {
+            throw new IllegalArgumentException("--directory-url needs --shard-id");
+        }
+        try (Connection connection = DriverManager.getConnection(args.jdbcUrl(), args.dbUser(), args.dbPassword())) {
+            connection.setAutoCommit(false);
+            generator.readSequences(connection);
+            // The sequences are not restarted, so ids stay unique across shards
+            if (args.has("truncate")) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("truncate users, portfolios, investments, target_allocations, transactions, "
+                            + "performance cascade");
+                }
+            }
+            generator.load(connection);
+            connection.commit();
+        }
+        if (directoryUrl != null) {
+            try (Connection directory = DriverManager.getConnection(directoryUrl, args.dbUser(), args.dbPassword())) {
+                directory.setAutoCommit(false);
+                generator.register(directory, (int) args.number("shard-id", 0), args.has("truncate"));
+                directory.commit();
+            }
+        }
+    }
+    
+    // Next id each sequence would hand out. Ids of users that moved to another shard are below it
+    // but no longer in the table, so the table's maximum alone is not enough
+    private void readSequences(Connection connection) throws SQLException {
+        for (Table table : Table.values()) {
+            String sequence;
+            long increment;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("select seqrelid::regclass::text, seqincrement "
+                         + "from pg_sequence "
+                         + "where seqrelid = pg_get_serial_sequence('" + table.name + "', 'id')::regclass")) {
+                rows.next();
+                sequence = rows.getString(1);
+                increment = rows.getLong(2);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("select last_value, is_called from " + sequence)) {
+                rows.next();
+                baseIds[table.ordinal()] = rows.getLong(1) + (rows.getBoolean(2) ? increment : 0);
+            }
+            increments[table.ordinal()] = increment;
+        }
+    }
+    
+    private void load(Connection connection) throws SQLException {
+        for (Table table : Table.values()) {
+            int t = table.ordinal();
+            long first = baseIds[t];
+            long maxId = maxId(connection, table);
+            if (first <= maxId) {
+                first += (maxId - first + increments[t]) / increments[t] * increments[t];
+            }
+            baseIds[t] = first - increments[t];
+        }
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        long started = System.nanoTime();
+        for (Table table : Table.values()) {
+            long passStarted = System.nanoTime();
+            System.arraycopy(baseIds, 0, nextIds, 0, baseIds.length);
+            target = table;
+            out = new CopyStream(copyManager, table.name, table.columns);
+            for (long user = 0; user < users; user++) {
+                generateUser(user);
+            }
+            long rows = out.finish();
+            System.out.printf("%-13s %,14d rows %,8d ms%n", table.name, rows,
+                    (System.nanoTime() - passStarted) / 1_000_000);
+        }
+        try (Statement statement = connection.createStatement()) {
+            // nextIds holds each table's last generated id; a table that got no rows keeps its position
+            for (Table table : Table.values()) {
+                int t = table.ordinal();
+                boolean generated = nextIds[t] > baseIds[t];
+                statement.execute("select setval(pg_get_serial_sequence('" + table.name + "', 'id'), "
+                        + (generated ? nextIds[t] : baseIds[t] + increments[t]) + ", " + generated + ")");
+            }
+            for (Table table : Table.values()) {
+                statement.execute("analyze " + table.name);
+            }
+        }
+        System.out.printf("Loaded %,d users (seed %d, as of %s) in %,d ms%n", users, seed, asOf,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    // Directory rows for the generated users; replaces this shard's rows when the shard was truncated
+    private void register(Connection directory, int shardId, boolean truncated) throws SQLException {
+        if (truncated) {
+            try (PreparedStatement statement = directory.prepareStatement("delete from user_identities "
+                    + "where user_id in (select user_id from user_shards where shard_id = ?)")) {
+                statement.setInt(1, shardId);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = directory.prepareStatement(
+                    "delete from user_shards where shard_id = ?")) {
+                statement.setInt(1, shardId);
+                statement.executeUpdate();
+            }
+        }
+        CopyManager copyManager = directory.unwrap(PGConnection.class).getCopyAPI();
+        int users = Table.USERS.ordinal();
+        CopyStream shards = new CopyStream(copyManager, "user_shards", "user_id, shard_id");
+        for (long userId = baseIds[users] + increments[users]; userId <= nextIds[users]; userId += increments[users]) {
+            shards.row(userId, shardId);
+        }
+        long rows = shards.finish();
+        CopyStream identities = new CopyStream(copyManager, "user_identities", "user_id, username, email");
+        for (long userId = baseIds[users] + increments[users]; userId <= nextIds[users]; userId += increments[users]) {
+            identities.row(userId, "user" + userId, "user" + userId + "@example.com");
+        }
+        identities.finish();
+        System.out.printf("Registered %,d users on shard %d in the directory%n", rows, shardId);
+    }
+    
+    private void generateUser(long index) throws SQLException {
+        SplittableRandom random = new SplittableRandom(mix(seed + index * 0x9E3779B97F4A7C15L));
+        SplittableRandom targetRandom = new SplittableRandom(mix(~(seed + index * 0x9E3779B97F4A7C15L)));
+        long userId = nextId(Table.USERS);
+        LocalDate firstDay = asOf.minusYears(years);
+        LocalDateTime userCreated = firstDay.plusDays(random.nextInt(Math.max(1, 365 * years - 30)))
+                .atTime(random.nextInt(24), random.nextInt(60));
+        emit(Table.USERS, userId, "user" + userId, passwordHash, "Synthetic User " + userId,
+                "user" + userId + "@example.com", userCreated);
+        
+        int portfolios = 1;
+        while (portfolios < maxPortfolios && random.nextDouble() < 0.45) {
+            portfolios++;
+        }
+        for (int p = 0; p < portfolios; p++) {
+            generatePortfolio(random, targetRandom, userId, p, userCreated.toLocalDate());
+        }
+    }
+    
+    private void generatePortfolio(SplittableRandom random, SplittableRandom targetRandom, long userId, int ordinal,
+                                   LocalDate userCreated) throws SQLException {
+        long portfolioId = nextId(Table.PORTFOLIOS);
+        long daysLeft = ChronoUnit.DAYS.between(userCreated, asOf);
+        LocalDate start = userCreated.plusDays(random.nextLong(Math.max(1, Math.min(90, daysLeft))));
+        
+        // Heavy-tailed position counts: median below the mean, a few very large portfolios
+        double sigma = 1.1;
+        int count = (int) Math.round(Math.exp(Math.log(meanInvestments) - sigma * sigma / 2
+                + sigma * random.nextGaussian()));
+        count = Math.max(1, Math.min(maxInvestments, count));
+        
+        int[] types = new int[count];
+        double[] amounts = new double[count];
+        LocalDate[] purchased = new LocalDate[count];
+        double[] noise = new double[count];
+        double total = 0;
+        double[] byType = new double[TYPES.length];
+        long holdingDays = Math.max(1, ChronoUnit.DAYS.between(start, asOf));
+        for (int i = 0; i < count; i++) {
+            types[i] = pickType(random.nextDouble());
+            amounts[i] = round2(Math.exp(Math.log(2_500) + random.nextGaussian()));
+            double u = random.nextDouble();
+            purchased[i] = start.plusDays((long) (u * u * holdingDays));
+            noise[i] = Math.exp(0.1 * random.nextGaussian());
+            total += amounts[i];
+            byType[types[i]] += amounts[i];
+        }
+        
+        double drift = 0;
+        double variance = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            double weight = byType[t] / total;
+            drift += weight * ANNUAL_RETURN[t] / TRADING_DAYS;
+            variance += Math.pow(weight * ANNUAL_VOLATILITY[t], 2) / TRADING_DAYS;
+        }
+        double volatility = Math.sqrt(variance);
+        
+        double value = total;
+        double previous = value;
+        boolean first = true;
+        for (LocalDate day = start; !day.isAfter(asOf); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            double r = first ? 0 : Math.max(-0.5, drift + volatility * random.nextGaussian());
+            value *= 1 + r;
+            emit(Table.PERFORMANCE, nextId(Table.PERFORMANCE), day, money(value), money(value - previous),
+                    money(r * 100), portfolioId);
+            previous = value;
+            first = false;
+        }
+        double growth = value / total;
+        
+        double currentTotal = 0;
+        for (int i = 0; i < count; i++) {
+            long investmentId = nextId(Table.INVESTMENTS);
+            double current = round2(amounts[i] * growth * noise[i]);
+            currentTotal += current;
+            String type = TYPES[types[i]];
+            emit(Table.INVESTMENTS, investmentId, type + " position " + investmentId, null, type,
+                    RISK_LEVELS[types[i]], money(amounts[i]), money(current), purchased[i], true,
+                    purchased[i].atTime(10, 0), portfolioId);
+            generateTransactions(random, portfolioId, investmentId, amounts[i], purchased[i]);
+        }
+        if (targetRandom.nextDouble() < targetShare) {
+            generateTargets(targetRandom, portfolioId, byType);
+        }
+        
+        emit(Table.PORTFOLIOS, portfolioId, "Portfolio " + (ordinal + 1), "Synthetic portfolio of user " + userId,
+                money(currentTotal), true, start.atTime(9, 0), userId);
+    }
+    
+    // One row per held asset type; weights sum to exactly 100, the rounding going to the largest
+    private void generateTargets(SplittableRandom random, long portfolioId, double[] byType) throws SQLException {
+        double[] weights = new double[TYPES.length];
+        double sum = 0;
+        int largest = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            if (byType[t] > 0) {
+                weights[t] = byType[t] * Math.exp(0.3 * random.nextGaussian());
+                sum += weights[t];
+                if (weights[t] > weights[largest]) {
+                    largest = t;
+                }
+            }
+        }
+        BigDecimal[] percents = new BigDecimal[TYPES.length];
+        BigDecimal rest = money(100);
+        for (int t = 0; t < TYPES.length; t++) {
+            if (weights[t] > 0 && t != largest) {
+                percents[t] = money(100 * weights[t] / sum);
+                rest = rest.subtract(percents[t]);
+            }
+        }
+        percents[largest] = rest;
+        BigDecimal tolerance = money(TOLERANCES[random.nextInt(TOLERANCES.length)]);
+        for (int t = 0; t < TYPES.length; t++) {
+            if (percents[t] != null) {
+                emit(Table.TARGET_ALLOCATIONS, nextId(Table.TARGET_ALLOCATIONS), TYPES[t], percents[t], tolerance,
+                        portfolioId);
+            }
+        }
+    }
+    
+    private void generateTransactions(SplittableRandom random, long portfolioId, long investmentId,
+                                      double amount, LocalDate purchased) throws SQLException {
+        emit(Table.TRANSACTIONS, nextId(Table.TRANSACTIONS), "BUY", money(amount), "Initial purchase",
+                purchased.atTime(10, 0), portfolioId, investmentId);
+        long days = ChronoUnit.DAYS.between(purchased, asOf);
+        int events = poisson(random, transactionsPerYear * days / 365.0);
+        for (int e = 0; e < events; e++) {
+            LocalDateTime date = purchased.plusDays(1 + random.nextLong(Math.max(1, days)))
+                    .atTime(9 + random.nextInt(8), random.nextInt(60), random.nextInt(60));
+            double kind = random.nextDouble();
+            String type;
+            double size;
+            if (kind < 0.5) {
+                type = "BUY";
+                size = amount * Math.exp(Math.log(0.1) + 0.8 * random.nextGaussian());
+            } else if (kind < 0.85) {
+                type = "SELL";
+                size = amount * Math.exp(Math.log(0.1) + 0.8 * random.nextGaussian());
+            } else {
+                type = "DIVIDEND";
+                size = amount * 0.005 * (1 + random.nextDouble());
+            }
+            emit(Table.TRANSACTIONS, nextId(Table.TRANSACTIONS), type, money(Math.max(0.01, size)), null,
+                    date, portfolioId, investmentId);
+        }
+    }
+    
+    private void emit(Table table, Object... values) throws SQLException {
+        if (table == target) {
+            out.row(values);
+        }
+    }
+    
+    private long nextId(Table table) {
+        return nextIds[table.ordinal()] += increments[table.ordinal()];
+    }
+    
+    private static long maxId(Connection connection, Table table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select coalesce(max(id), 0) from " + table.name)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+    
+    private static int pickType(double u) {
+        for (int t = 0; t < TYPE_CUMULATIVE.length; t++) {
+            if (u < TYPE_CUMULATIVE[t]) {
+                return t;
+            }
+        }
+        return TYPE_CUMULATIVE.length - 1;
+    }
+    
+    private static int poisson(SplittableRandom random, double lambda) {
+        if (lambda <= 0) {
+            return 0;
+        }
+        if (lambda > 30) {
+            return (int) Math.max(0, Math.round(lambda + Math.sqrt(lambda) * random.nextGaussian()));
+        }
+        double limit = Math.exp(-lambda);
+        double product = random.nextDouble();
+        int n = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            n++;
+        }
+        return n;
+    }
+    
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_EVEN);
+    }
+    
+    // SplitMix64 finalizer, so neighbouring user indexes get unrelated streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Buffers CSV rows and hands them to the server in chunks of about 1 MB.
+     */
+    private static final class CopyStream {
+        
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+        
+        CopyStream(CopyManager copyManager, String table, String columns) throws SQLException {
+            this.copy = copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)");
+        }
+        
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof String text) {
+                    // Quoted so empty strings are not read as NULL
+                    buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else if (value instanceof BigDecimal decimal) {
+                    buffer.append(decimal.toPlainString());
+                } else if (value != null) {
+                    buffer.append(value);
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= FLUSH_CHARS) {
+                flush();
+            }
+        }
+        
+        long finish() throws SQLException {
+            flush();
+            return copy.endCopy();
+        }
+        
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
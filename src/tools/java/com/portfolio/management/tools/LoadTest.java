@@ -0,0 +1,307 @@
+package com.portfolio.management.tools;
+
+import com.portfolio.management.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the HTTP API with a weighted mix of read and write requests against portfolios that
+ * already exist in the database (for example, ones created by {@link DataGenerator}), and reports
+ * throughput and p50/p99/p99.9 latency for each operation.
+ * <p>
+ * By default each worker sends its next request as soon as the previous one returns (closed
+ * loop). With {@code --rate} the workers follow a fixed schedule instead, and latency is measured
+ * from the scheduled send time. A slow response then also counts against the requests queued
+ * behind it, which is needed for honest tail percentiles. Requests sent during the warm-up are
+ * not recorded.
+ * <p>
+ * Usage: see {@code scripts/load-test.sh} and {@code docs/load-testing.md}.
+ */
+public final class LoadTest {
+    
+    private enum Operation {
+        TARGETS("targets"),
+        REBALANCE("rebalance"),
+        RISK("risk"),
+        POST_TRANSACTION("post-transaction"),
+        REPORT("report"),
+        SIGNUP("signup");
+        
+        final String label;
+        
+        Operation(String label) {
+            this.label = label;
+        }
+        
+        static Operation of(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equals(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + label);
+        }
+    }
+    
+    private static final Map<String, String> PROFILES = Map.of(
+            "read-heavy", "targets:60,rebalance:15,risk:10,post-transaction:15",
+            "mixed", "targets:35,rebalance:10,risk:5,post-transaction:50",
+            "write-heavy", "targets:10,post-transaction:90");
+    
+    private final HttpClient client;
+    private final String baseUrl;
+    private final long[] portfolioIds;
+    private final long[] userIds;
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+    private final double skew;
+    private final String groupCommit;
+    private final long riskPaths;
+    // Signup usernames and e-mails are unique per run so repeated runs do not collide
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong signups = new AtomicLong();
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Stats total = new Stats();
+    
+    private LoadTest(ToolArgs args, long[] portfolioIds, long[] userIds) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = args.string("base-url", "BASE_URL", "http://localhost:5000");
+        this.portfolioIds = portfolioIds;
+        this.userIds = userIds;
+        this.skew = args.decimal("skew", 1.0);
+        this.groupCommit = args.string("group-commit", null);
+        this.riskPaths = args.number("risk-paths", 1_000);
+        
+        String profile = args.string("profile", "mixed");
+        String mix = args.string("mix", PROFILES.get(profile));
+        if (mix == null) {
+            throw new IllegalArgumentException("Unknown profile " + profile + ", expected one of " + PROFILES.keySet());
+        }
+        Map<Operation, Double> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.of(parts[0]), Double.parseDouble(parts[1]));
+        }
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new double[operations.length];
+        double sum = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        double running = 0;
+        for (int i = 0; i < operations.length; i++) {
+            running += weights.get(operations[i]) / sum;
+            cumulativeWeights[i] = running;
+            stats.put(operations[i], new Stats());
+        }
+    }
+    
+    public static void main(String[] argv) throws Exception {
+        ToolArgs args = new ToolArgs(argv);
+        int concurrency = (int) args.number("concurrency", 32);
+        Duration warmup = args.duration("warmup", Duration.ofSeconds(10));
+        Duration duration = args.duration("duration", Duration.ofSeconds(60));
+        double rate = args.decimal("rate", 0);
+        long seed = args.number("seed", 42);
+        
+        long[][] targets = loadPortfolios(args, (int) args.number("sample", 100_000));
+        if (targets[0].length == 0) {
+            throw new IllegalStateException("No active portfolios found; run scripts/generate-data.sh first");
+        }
+        LoadTest test = new LoadTest(args, targets[0], targets[1]);
+        System.out.printf("%d workers, %s, warm-up %ds, measuring %ds against %,d portfolios%n", concurrency,
+                rate > 0 ? String.format("%.0f req/s schedule", rate) : "closed loop",
+                warmup.toSeconds(), duration.toSeconds(), targets[0].length);
+        
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            SplittableRandom random = root.split();
+            long interval = rate > 0 ? (long) (concurrency * 1e9 / rate) : 0L;
+            long firstSend = start + (interval * w) / concurrency;
+            Thread worker = new Thread(() -> test.work(random, firstSend, interval, measureFrom, end), "load-" + w);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        double errorRate = test.report(duration);
+        double maxErrorRate = args.decimal("max-error-rate", 0.01);
+        if (errorRate > maxErrorRate) {
+            System.out.printf("Error rate %.2f%% exceeds %.2f%%%n", errorRate * 100, maxErrorRate * 100);
+            System.exit(1);
+        }
+    }
+    
+    private void work(SplittableRandom random, long firstSend, long interval, long measureFrom, long end) {
+        long scheduled = firstSend;
+        while (true) {
+            if (interval > 0) {
+                long now;
+                while ((now = System.nanoTime()) < scheduled && scheduled < end) {
+                    LockSupport.parkNanos(scheduled - now);
+                }
+            } else {
+                scheduled = System.nanoTime();
+            }
+            if (scheduled >= end) {
+                return;
+            }
+            
+            Operation operation = pick(random.nextDouble());
+            int target = (int) (portfolioIds.length * Math.pow(random.nextDouble(), skew));
+            HttpRequest request = request(operation, userIds[target], portfolioIds[target], random);
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - scheduled;
+            if (scheduled >= measureFrom) {
+                stats.get(operation).record(latency, status);
+                total.record(latency, status);
+            }
+            scheduled += interval;
+        }
+    }
+    
+    private Operation pick(double u) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (u < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+    
+    private HttpRequest request(Operation operation, long userId, long portfolioId, SplittableRandom random) {
+        String portfolio = baseUrl + "/api/users/" + userId + "/portfolios/" + portfolioId;
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        switch (operation) {
+            case TARGETS:
+                return builder.uri(URI.create(portfolio + "/targets")).GET().build();
+            case REBALANCE:
+                return builder.uri(URI.create(portfolio + "/rebalance")).GET().build();
+            case RISK:
+                return builder.uri(URI.create(portfolio + "/risk?paths=" + riskPaths)).GET().build();
+            case POST_TRANSACTION:
+                String query = groupCommit != null ? "?groupCommit=" + groupCommit : "";
+                String body = String.format("{\"transactionType\":\"%s\",\"amount\":%d.%02d,"
+                                + "\"notes\":\"load test\",\"portfolioId\":%d}",
+                        random.nextBoolean() ? "BUY" : "SELL", 1 + random.nextInt(5_000), random.nextInt(100),
+                        portfolioId);
+                return json(builder.uri(URI.create(baseUrl + "/api/users/" + userId + "/transactions" + query)), body);
+            case REPORT:
+                return json(builder.uri(URI.create(portfolio + "/reports")),
+                        "{\"format\":\"CSV\",\"startDate\":\"2025-01-01\",\"endDate\":\"2025-12-31\"}");
+            case SIGNUP:
+                String username = "load-" + runId + "-" + signups.incrementAndGet();
+                return json(builder.uri(URI.create(baseUrl + "/api/users")), String.format(
+                        "{\"username\":\"%s\",\"password\":\"password\",\"email\":\"%s@example.com\"}",
+                        username, username));
+            default:
+                throw new IllegalStateException(operation.name());
+        }
+    }
+    
+    private static HttpRequest json(HttpRequest.Builder builder, String body) {
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+    
+    private double report(Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%n%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : operations) {
+            print(operation.label, stats.get(operation), seconds);
+        }
+        print("all", total, seconds);
+        if (total.errors.sum() > 0) {
+            System.out.println();
+            System.out.println("Error responses by status (-1 = connection error):");
+            total.statuses.forEach((status, count) -> {
+                if (status < 200 || status >= 300) {
+                    System.out.printf("  %4d %,10d%n", status, count.sum());
+                }
+            });
+        }
+        long requests = total.latency.count();
+        return requests > 0 ? (double) total.errors.sum() / requests : 0;
+    }
+    
+    private static void print(String label, Stats stats, double seconds) {
+        LatencyHistogram latency = stats.latency;
+        System.out.printf("%-18s %,10d %,8d %,10.1f %10.2f %10.2f %10.2f %10.2f%n", label, latency.count(),
+                stats.errors.sum(), latency.count() / seconds,
+                latency.percentileMicros(0.50) / 1000.0,
+                latency.percentileMicros(0.99) / 1000.0,
+                latency.percentileMicros(0.999) / 1000.0,
+                latency.maxMicros() / 1000.0);
+    }
+    
+    // Portfolios with their owners, so path-scoped requests pass the ownership check
+    private static long[][] loadPortfolios(ToolArgs args, int sample) throws SQLException {
+        List<long[]> rows = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(args.jdbcUrl(), args.dbUser(), args.dbPassword());
+             PreparedStatement statement = connection.prepareStatement(
+                     "select id, user_id from portfolios where is_active order by id limit ?")) {
+            statement.setInt(1, sample);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(new long[] {resultSet.getLong(1), resultSet.getLong(2)});
+                }
+            }
+        }
+        long[][] targets = new long[2][rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            targets[0][i] = rows.get(i)[0];
+            targets[1][i] = rows.get(i)[1];
+        }
+        return targets;
+    }
+    
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        
+        void record(long latencyNanos, int status) {
+            latency.recordNanos(latencyNanos);
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (status < 200 || status >= 300) {
+                errors.increment();
+            }
+        }
+    }
+}
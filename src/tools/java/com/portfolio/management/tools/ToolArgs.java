@@ -0,0 +1,90 @@
+package com.portfolio.management.tools;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name=value} command-line options, falling back to environment variables.
+ */
+class ToolArgs {
+    
+    private final Map<String, String> values = new HashMap<>();
+    
+    ToolArgs(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+    }
+    
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+    
+    String string(String name, String env, String defaultValue) {
+        String value = values.get(name);
+        if (value == null && env != null) {
+            value = System.getenv(env);
+        }
+        return value != null ? value : defaultValue;
+    }
+    
+    String string(String name, String defaultValue) {
+        return string(name, null, defaultValue);
+    }
+    
+    long number(String name, long defaultValue) {
+        String value = values.get(name);
+        return value != null ? Long.parseLong(value.replace("_", "")) : defaultValue;
+    }
+    
+    double decimal(String name, double defaultValue) {
+        String value = values.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+    
+    LocalDate date(String name, LocalDate defaultValue) {
+        String value = values.get(name);
+        return value != null ? LocalDate.parse(value) : defaultValue;
+    }
+    
+    // Accepts ISO-8601 (PT30S) or a number with an s/m suffix (30s, 5m)
+    Duration duration(String name, Duration defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+    
+    // Same environment variables as spring.datasource.* in application.properties
+    String jdbcUrl() {
+        return string("url", "DATABASE_URL", "jdbc:postgresql://localhost:5432/portfolio");
+    }
+    
+    String dbUser() {
+        return string("db-user", "PGUSER", "postgres");
+    }
+    
+    String dbPassword() {
+        return string("db-password", "PGPASSWORD", "");
+    }
+}